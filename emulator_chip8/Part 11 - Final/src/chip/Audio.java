@@ -1,22 +1,89 @@
 package chip;
 
-import java.io.File;
-
-import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-
-public class Audio {
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
 
-	public static void playSound(String file) {
-		try {
-			Clip clip = AudioSystem.getClip();
-			AudioInputStream audioInput = AudioSystem.getAudioInputStream(new File(file));
-			clip.open(audioInput);
-			clip.start();
-			System.out.println("Beep");
-		} catch (Exception e) {
-			System.err.println("Failed to play audio file: " + e.getMessage());
+/**
+ * Plays the beep of the sound timer on a single, continuously open line<br/>
+ * The square wave is synthesized once and then written in 1/60 second chunks, switching between beep and silence per chunk
+ */
+public class Audio implements Runnable {
+	
+	private static final int SAMPLE_RATE = 44100;
+	/**
+	 * The amount of samples per 60 Hz tick
+	 */
+	private static final int CHUNK_SIZE = SAMPLE_RATE / 60;
+	/**
+	 * Samples per wave period, 105 divides the chunk size exactly so chunks join without clicks (420 Hz)
+	 */
+	private static final int PERIOD = 105;
+	private static final byte VOLUME = 24;
+	
+	private final byte[] beep;
+	private final byte[] silence;
+	
+	private SourceDataLine line;
+	private Thread thread;
+	private volatile boolean running;
+	/**
+	 * If the beep should currently be audible
+	 */
+	private volatile boolean beeping;
+	
+	public Audio() {
+		beep = new byte[CHUNK_SIZE];
+		silence = new byte[CHUNK_SIZE];
+		for(int i = 0; i < beep.length; i++) {
+			beep[i] = (i % PERIOD) < (PERIOD / 2) ? VOLUME : -VOLUME;
+		}
+	}
+	
+	/**
+	 * Opens the audio line and starts feeding it
+	 * @throws LineUnavailableException
+	 * If the system has no usable audio output
+	 */
+	public void start() throws LineUnavailableException {
+		AudioFormat format = new AudioFormat(SAMPLE_RATE, 8, 1, true, false);
+		line = AudioSystem.getSourceDataLine(format);
+		line.open(format, CHUNK_SIZE * 4);
+		line.start();
+		
+		running = true;
+		thread = new Thread(this, "Chip 8 Audio");
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	@Override
+	public void run() {
+		while(running) {
+			//Blocks until the line has room, which paces this loop at 60 Hz
+			line.write(beeping ? beep : silence, 0, CHUNK_SIZE);
+		}
+	}
+	
+	/**
+	 * Turns the beep on or off, picked up at the next 60 Hz chunk
+	 * @param beeping
+	 */
+	public void setBeeping(boolean beeping) {
+		if(this.beeping != beeping) {
+			this.beeping = beeping;
+		}
+	}
+	
+	/**
+	 * Stops feeding and closes the audio line
+	 */
+	public void close() {
+		running = false;
+		if(line != null) {
+			line.stop();
+			line.close();
 		}
 	}
 
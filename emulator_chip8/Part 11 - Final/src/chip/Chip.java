@@ -1,16 +1,101 @@
 package chip;
 
-import java.io.DataInputStream;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.Random;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+import chip.block.Block;
+import chip.block.BlockCache;
+import chip.block.BlockCompiler;
+import chip.block.ICompiledBlock;
+import chip.opcode.IOpcode;
+import chip.opcode.OpcodeTable;
+import chip.profile.Profiler;
+import chip.trace.TraceBuffer;
 
 public class Chip {
 	
 	/**
-	 * 4kB of 8-bit memory<br/>
+	 * Marks the start of a save state ("C8ST")
+	 */
+	public static final int STATE_MAGIC = 0x54533843;
+	/**
+	 * The save state format written by this version
+	 */
+	public static final int STATE_VERSION = 3;
+	/**
+	 * The width and height of the display in high resolution mode, low resolution is half of both
+	 */
+	public static final int MAX_WIDTH = 128;
+	public static final int MAX_HEIGHT = 64;
+	/**
+	 * The amount of longs per bit plane: two per row
+	 */
+	public static final int PLANE_SIZE = MAX_HEIGHT * 2;
+	/**
+	 * The amount of bit planes (XO-CHIP)
+	 */
+	public static final int PLANES = 2;
+	/**
+	 * The size of a save state of a chip with 4kB of memory, see {@link #getStateSize(int)}
+	 */
+	public static final int STATE_SIZE = getStateSize(0x1000);
+	
+	/**
+	 * The machine this chip acts as
+	 */
+	private Platform platform;
+	/**
+	 * The behaviour of the opcodes the interpreters disagree on, resolved into {@link #opcodeTable}
+	 */
+	private Quirks quirks;
+	/**
+	 * The {@link #quirks} resolved for the switch interpreter: moves the source register of 8XY6 and 8XYE down out
+	 * of the opcode, 4 for VY and 8 for VX
+	 */
+	private int shiftSource;
+	/**
+	 * Moves the bit shifted out by 8XYE down to 1, 0 keeps it at 0x80
+	 */
+	private int flagShift;
+	/**
+	 * Added to VX before 8XY5 compares it: 1 turns VX > VY into VX >= VY
+	 */
+	private int equalBias;
+	/**
+	 * FX55 and FX65 move I by X times the scale plus the increment
+	 */
+	private int storeScale;
+	private int storeIncrement;
+	private int loadScale;
+	private int loadIncrement;
+	/**
+	 * Selects the register BNNN adds out of the opcode: 0 for V0, 0x0F00 for VX
+	 */
+	private int jumpRegisterMask;
+	/**
+	 * ANDed onto VF after 8XY1 to 8XY3: 0 resets it like the COSMAC VIP, 0xFF keeps it
+	 */
+	private int logicFlagMask;
+	/**
+	 * Selects what VF holds after an arithmetic opcode with X = F: 0xFF keeps the result because the flag was written
+	 * first, 0 the flag because it is written last
+	 */
+	private int resultFlagMask;
+	/**
+	 * The rows a sprite may extend below the bottom edge (16 wraps every line, 0 clips) and the bits shifted out at
+	 * the right edge which are kept (-1 wraps them around, 0 clips them)
+	 */
+	private int spriteRowOverflow;
+	private long spriteWrapMask;
+	/**
+	 * 4kB (XO-CHIP: 64kB) of 8-bit memory<br/>
 	 * At position 0x50: The "bios" fontset
+	 * At position 0xA0: The big SUPER-CHIP fontset
 	 * At position 0x200: The start of every program
 	 */
 	private char[] memory;
@@ -49,21 +134,139 @@ public class Chip {
 	private int sound_timer;
 	
 	/**
-	 * This array will be our keyboard state
+	 * The keyboard state, bit n is set while key n is pressed<br/>
+	 * Taken from the {@link Keypad} once at the start of every frame
+	 */
+	private int keys;
+	/**
+	 * The keypad the keys are taken from, null when they are set with {@link #setKeyMask(int)}
+	 */
+	private Keypad keypad;
+	/**
+	 * Set when FX0A found no key: the rest of the frame is skipped instead of repeating FX0A<br/>
+	 * The program counter stays on the FX0A so it simply executes again once a key is pressed
+	 */
+	private boolean waitingForKey;
+	/**
+	 * Set by 00FD (SUPER-CHIP exit), no more opcodes are executed until the next reset
+	 */
+	private boolean halted;
+	/**
+	 * The SUPER-CHIP RPL user flags, see FX75 and FX85
+	 */
+	private char[] flags;
+	/**
+	 * The length of the idle loop the last jump closed, 0 if it wasn't one<br/>
+	 * The rest of the frame would only repeat that loop, see {@link #jump(int)}
+	 */
+	private int idleLoopLength;
+	/**
+	 * The display: {@link #PLANES} bit planes of up to 128x64 pixels<br/>
+	 * Every row is packed into two longs, the leftmost pixel is the most significant bit of the first one. The 64x32
+	 * low resolution mode only uses the first long of the first 32 rows, so a sprite line stays a single rotate and XOR<br/>
+	 * Plane n starts at n * {@link #PLANE_SIZE}
+	 */
+	private long[] display;
+	/**
+	 * If the display is in the 128x64 SUPER-CHIP mode
 	 */
-	private byte[] keys;
+	private boolean highResolution;
+	private int displayWidth;
+	private int displayHeight;
 	/**
-	 * The 64x32 pixel monochrome (black/white) display
+	 * The bit planes which are drawn, scrolled and cleared, bit n selects plane n (XO-CHIP FN01)
 	 */
-	private byte[] display;
+	private int planeMask;
+	/**
+	 * The display unpacked to one byte per pixel for {@link #getDisplay()}, allocated on first use
+	 */
+	private byte[] displayView;
+	/**
+	 * If the display changed since {@link #displayView} was unpacked
+	 */
+	private boolean displayViewDirty;
+	/**
+	 * One bit per display row which changed since the last {@link #pollDirtyRows()}
+	 */
+	private long dirtyRows;
 	
 	private boolean needRedraw;
 	
+	/**
+	 * The way opcodes are being decoded and executed
+	 */
+	private ExecutionMode executionMode = ExecutionMode.SWITCH;
+	/**
+	 * The predecoded handlers indexed by the full 16-bit opcode, built for the {@link #quirks}<br/>
+	 */
+	private IOpcode[] opcodeTable;
+	/**
+	 * The decoded basic blocks used by {@link ExecutionMode#BLOCK} and {@link ExecutionMode#JIT}, allocated on first
+	 * use
+	 */
+	private BlockCache blockCache;
+	/**
+	 * Generates the code of the hot blocks in {@link ExecutionMode#JIT}, allocated on first use
+	 */
+	private BlockCompiler blockCompiler;
+	/**
+	 * The amount of opcodes executed since the last reset
+	 */
+	private long instructionCount;
+	/**
+	 * The instruction count at which the current frame started and ends
+	 */
+	private long frameStart;
+	private long frameEnd;
+	/**
+	 * The amount of frames executed since the last reset
+	 */
+	private long frameCount;
+	/**
+	 * The xorshift state of the random number generator used by CXNN, never 0
+	 */
+	private int randomState;
+	/**
+	 * Receives every change of the keys, null when not recording
+	 */
+	private InputRecorder inputRecorder;
+	/**
+	 * Records every executed opcode when set, null when tracing is off
+	 */
+	private TraceBuffer trace;
+	/**
+	 * Counts every executed opcode when set, null when profiling is off
+	 */
+	private Profiler profiler;
+	/**
+	 * Plays the beep while the sound timer runs, null when there is no sound
+	 */
+	private Audio audio;
+	
 	/**
 	 * Reset the Chip 8 memory and pointers
 	 */
 	public void init() {
-		memory = new char[4096];
+		init(Platform.CHIP8);
+	}
+	
+	/**
+	 * Reset the memory and pointers for the given machine with the {@link Quirks#LEGACY} behaviour
+	 * @param platform
+	 */
+	public void init(Platform platform) {
+		init(platform, Quirks.LEGACY);
+	}
+	
+	/**
+	 * Reset the memory and pointers for the given machine and quirk profile
+	 * @param platform
+	 * @param quirks
+	 */
+	public void init(Platform platform, Quirks quirks) {
+		this.platform = platform;
+		this.quirks = quirks;
+		memory = new char[platform.getMemorySize()];
 		V = new char[16];
 		I = 0x0;
 		pc = 0x200;
@@ -74,51 +277,309 @@ public class Chip {
 		delay_timer = 0;
 		sound_timer = 0;
 		
-		keys = new byte[16];
+		keys = 0;
+		waitingForKey = false;
+		halted = false;
+		flags = new char[16];
 		
-		display = new byte[64 * 32];
+		display = new long[PLANES * PLANE_SIZE];
+		displayView = null;
+		highResolution = false;
+		displayWidth = 64;
+		displayHeight = 32;
+		planeMask = 1;
+		displayViewDirty = false;
+		dirtyRows = -1L;
 		
 		needRedraw = false;
+		opcodeTable = OpcodeTable.getTable(quirks);
+		shiftSource = quirks.shiftsVY() ? 4 : 8;
+		flagShift = quirks.hasExactFlags() ? 7 : 0;
+		equalBias = quirks.hasExactFlags() ? 1 : 0;
+		storeIncrement = quirks.getStoreIncrement(0);
+		storeScale = quirks.getStoreIncrement(1) - storeIncrement;
+		loadIncrement = quirks.getLoadIncrement(0);
+		loadScale = quirks.getLoadIncrement(1) - loadIncrement;
+		jumpRegisterMask = quirks.jumpsWithVX() ? 0x0F00 : 0;
+		logicFlagMask = quirks.resetsFlag() ? 0 : 0xFF;
+		resultFlagMask = quirks.hasExactFlags() ? 0 : 0xFF;
+		spriteRowOverflow = quirks.clipsSprites() ? 0 : 16;
+		spriteWrapMask = quirks.clipsSprites() ? 0L : -1L;
+		blockCache = null;
+		blockCompiler = null;
+		instructionCount = 0;
+		frameStart = 0;
+		frameEnd = 0;
+		frameCount = 0;
+		setSeed(System.nanoTime());
 		loadFontset();
 	}
 	
 	/**
-	 * Executes a single Operation Code (Opcode)
+	 * Executes a single 60 Hz frame: the given amount of opcodes followed by a single timer tick<br/>
+	 * The keys are taken from the {@link Keypad} (if any) before the first opcode<br/>
+	 * While waiting for a key (FX0A) or after 00FD the opcodes of the frame are skipped, only the timers tick<br/>
+	 * Idle loops (see {@link #jump(int)}) are fast-forwarded to the end of the frame
+	 * @param instructions
+	 * The amount of opcodes per frame, CPU rate / 60
+	 * @throws UnsupportedOpcodeException
+	 * If the program reaches an opcode which isn't part of the instruction set
+	 */
+	public void runFrame(int instructions) {
+		beginFrame(instructions);
+		runUntil(frameEnd);
+		endFrame();
+	}
+	
+	/**
+	 * Starts a frame of the given amount of opcodes, which are executed by {@link #runUntil(long)}<br/>
+	 * {@link #runFrame(int)} in parts, to stop in the middle of a frame
+	 * @param instructions
+	 * The amount of opcodes per frame
+	 */
+	public void beginFrame(int instructions) {
+		if(keypad != null) {
+			setKeyMask(keypad.poll());
+		}
+		if(waitingForKey && keys != 0) {
+			waitingForKey = false;
+		}
+		idleLoopLength = 0;
+		frameStart = instructionCount;
+		frameEnd = instructionCount + instructions;
+	}
+	
+	/**
+	 * Executes the opcodes of the current frame until the instruction count is reached<br/>
+	 * Also a block stops there, so the state is exactly the one after that many opcodes
+	 * @param instruction
+	 * The instruction count to stop at, limited to the end of the frame
+	 */
+	public void runUntil(long instruction) {
+		long limit = Math.min(instruction, frameEnd);
+		while(instructionCount < limit) {
+			if(waitingForKey || halted) {
+				//Repeating FX0A until the end of the frame wouldn't change anything but the count
+				if(profiler != null) {
+					profiler.record(pc, (memory[pc] << 8) | memory[pc + 1], limit - instructionCount);
+				}
+				instructionCount = limit;
+				break;
+			}
+			if(idleLoopLength != 0) {
+				//Only if the whole iteration ran in this frame, otherwise it polled the delay timer of the previous one
+				if(instructionCount - frameStart >= idleLoopLength) {
+					//Skip all complete iterations, the few remaining opcodes are executed to end up at the same pc
+					long remaining = limit - instructionCount;
+					long skipped = remaining - (remaining % idleLoopLength);
+					if(profiler != null) {
+						recordSkippedLoop(skipped / idleLoopLength);
+					}
+					instructionCount += skipped;
+				}
+				idleLoopLength = 0;
+				continue;
+			}
+			run(limit);
+		}
+	}
+	
+	/**
+	 * Ends the current frame with a timer tick
+	 */
+	public void endFrame() {
+		tickTimers();
+		frameCount++;
+	}
+	
+	/**
+	 * Executes a single Operation Code (Opcode)<br/>
+	 * In {@link ExecutionMode#BLOCK} and {@link ExecutionMode#JIT} a whole basic block is executed instead<br/>
+	 * The timers are not touched, see {@link #tickTimers()}
 	 */
 	public void run() {
+		run(Long.MAX_VALUE);
+	}
+	
+	/**
+	 * Executes a single opcode or in {@link ExecutionMode#BLOCK} and {@link ExecutionMode#JIT} a basic block
+	 * @param limit
+	 * The instruction count at which a block stops
+	 */
+	private void run(long limit) {
+		if(executionMode == ExecutionMode.BLOCK || executionMode == ExecutionMode.JIT) {
+			runBlock(limit);
+			return;
+		}
+		
 		//fetch Opcode
 		char opcode = (char)((memory[pc] << 8) | memory[pc + 1]);
-		System.out.print(Integer.toHexString(opcode).toUpperCase() + ": ");
+		if(trace != null) {
+			trace.record(pc, opcode, I, V);
+		}
+		if(profiler != null) {
+			profiler.record(pc, opcode);
+		}
+		if(executionMode == ExecutionMode.TABLE) {
+			opcodeTable[opcode].execute(this);
+		} else {
+			interpret(opcode);
+		}
+		instructionCount++;
+	}
+	
+	/**
+	 * Executes the basic block at the program counter<br/>
+	 * Falls back to the switch interpreter for a single opcode if the block can't be decoded. In
+	 * {@link ExecutionMode#JIT} a complete run without trace or profiler executes the generated code, a block which
+	 * failed to compile is interpreted by the switch
+	 * @param limit
+	 * The instruction count at which the block stops early, the next block then starts in the middle of this one
+	 */
+	private void runBlock(long limit) {
+		Block block = getBlockCache().get(this, pc);
+		if(block == null) {
+			char opcode = (char)((memory[pc] << 8) | memory[pc + 1]);
+			if(trace != null) {
+				trace.record(pc, opcode, I, V);
+			}
+			if(profiler != null) {
+				profiler.record(pc, opcode);
+			}
+			interpret(opcode);
+			instructionCount++;
+			return;
+		}
+		
+		IOpcode[] handlers = block.getHandlers();
+		int count = (int)Math.min(handlers.length, limit - instructionCount);
+		if(executionMode == ExecutionMode.JIT && trace == null && profiler == null) {
+			if(count == handlers.length) {
+				ICompiledBlock compiled = getBlockCompiler().getCompiled(block);
+				if(compiled != null) {
+					compiled.execute(this);
+					instructionCount += count;
+					return;
+				}
+			}
+			if(block.isUncompilable()) {
+				char[] opcodes = block.getOpcodes();
+				for(int i = 0; i < count; i++) {
+					interpret(opcodes[i]);
+					instructionCount++;
+				}
+				return;
+			}
+		}
+		if(trace == null && profiler == null) {
+			//Nothing but the handlers, a block never overwrites itself before its last opcode
+			for(int i = 0; i < count; i++) {
+				handlers[i].execute(this);
+				instructionCount++;
+			}
+			return;
+		}
+		for(int i = 0; i < count; i++) {
+			if(trace != null) {
+				trace.record(pc, (memory[pc] << 8) | memory[pc + 1], I, V);
+			}
+			if(profiler != null) {
+				profiler.record(pc, (memory[pc] << 8) | memory[pc + 1]);
+			}
+			handlers[i].execute(this);
+			instructionCount++;
+		}
+	}
+	
+	/**
+	 * Counts the opcodes of the idle loop at the program counter as if they were executed
+	 * @param iterations
+	 * The amount of skipped iterations
+	 */
+	private void recordSkippedLoop(long iterations) {
+		for(int i = 0; i < idleLoopLength; i++) {
+			int address = pc + (i * 2);
+			profiler.record(address, (memory[address] << 8) | memory[address + 1], iterations);
+		}
+	}
+	
+	/**
+	 * Counts down the delay and sound timer<br/>
+	 * Has to be called at 60 Hz, independent of the amount of executed opcodes
+	 */
+	public void tickTimers() {
+		if(sound_timer > 0)
+			sound_timer--;
+		if(delay_timer > 0)
+			delay_timer--;
+		if(audio != null)
+			audio.setBeeping(sound_timer > 0);
+	}
+	
+	/**
+	 * Decodes and executes a single opcode with the switch interpreter
+	 * @param opcode
+	 * The opcode to execute
+	 * @throws UnsupportedOpcodeException
+	 * If the opcode isn't part of the instruction set
+	 */
+	private void interpret(char opcode) {
 		//decode opcode
 		switch(opcode & 0xF000) {
 		
 		case 0x0000: //Multi-case
 			switch(opcode & 0x00FF) {
 			case 0x00E0: //00E0: Clear Screen
-				for(int i = 0; i < display.length; i++) {
-					display[i] = 0;
-				}
+				clearDisplay();
 				pc += 2;
-				needRedraw = true;
 				break;
 				
 			case 0x00EE: //00EE: Returns from subroutine
 				stackPointer--;
 				pc = (char)(stack[stackPointer] + 2);
-				System.out.println("Returning to " + Integer.toHexString(pc).toUpperCase());
 				break;
 				
-			default: //0NNN: Calls RCA 1802 Program at address NNN
-				System.err.println("Unsupported Opcode!");
-				System.exit(0);
+			case 0x00FB: //00FB: Scrolls the display 4 pixels right (SUPER-CHIP)
+				scrollRight();
+				pc += 2;
+				break;
+				
+			case 0x00FC: //00FC: Scrolls the display 4 pixels left (SUPER-CHIP)
+				scrollLeft();
+				pc += 2;
+				break;
+				
+			case 0x00FD: //00FD: Exits the interpreter (SUPER-CHIP)
+				halted = true;
+				break;
+				
+			case 0x00FE: //00FE: Switches to the 64x32 low resolution (SUPER-CHIP)
+				setHighResolution(false);
+				pc += 2;
+				break;
+				
+			case 0x00FF: //00FF: Switches to the 128x64 high resolution (SUPER-CHIP)
+				setHighResolution(true);
+				pc += 2;
+				break;
+				
+			default:
+				if((opcode & 0x00F0) == 0x00C0) { //00CN: Scrolls the display N rows down (SUPER-CHIP)
+					scrollDown(opcode & 0x000F);
+					pc += 2;
+				} else if((opcode & 0x00F0) == 0x00D0) { //00DN: Scrolls the display N rows up (XO-CHIP)
+					scrollUp(opcode & 0x000F);
+					pc += 2;
+				} else { //0NNN: Calls RCA 1802 Program at address NNN
+					throw new UnsupportedOpcodeException(pc, opcode);
+				}
 				break;
 			}
 			break;
 		
 		case 0x1000: { //1NNN: Jumps to address NNN
 			int nnn = opcode & 0x0FFF;
-			pc = (char)nnn;
-			System.out.println("Jumping to " + Integer.toHexString(pc).toUpperCase());
+			jump(nnn);
 			break;
 		}
 			
@@ -126,18 +587,15 @@ public class Chip {
 			stack[stackPointer] = pc;
 			stackPointer++;
 			pc = (char)(opcode & 0x0FFF);
-			System.out.println("Calling " + Integer.toHexString(pc).toUpperCase() + " from " + Integer.toHexString(stack[stackPointer - 1]).toUpperCase());
 			break;
 			
 		case 0x3000: { //3XNN: Skips the next instruction if VX equals NN
 			int x = (opcode & 0x0F00) >> 8;
 			int nn = (opcode & 0x00FF);
 			if(V[x] == nn) {
-				pc += 4;
-				System.out.println("Skipping next instruction (V[" + x +"] == " + nn + ")");
+				skipNextInstruction();
 			} else {
 				pc += 2;
-				System.out.println("Not skipping next instruction (V[" + x +"] =/= " + nn + ")");
 			}
 			break;
 		}
@@ -146,24 +604,34 @@ public class Chip {
 			int x = (opcode & 0x0F00) >> 8;
 			int nn = opcode & 0x00FF;
 			if(V[x] != nn) {
-				System.out.println("Skipping next instruction V[" + x + "] = " + (int)V[x] + " != " + nn);
-				pc += 4;
+				skipNextInstruction();
 			} else {
-				System.out.println("Not skipping next instruction V[" + x + "] = " + (int)V[x] + " == " + nn);
 				pc += 2;
 			}
 			break;
 		}
 		
-		case 0x5000: { //5XY0 Skips the next instruction if VX equals VY.
+		case 0x5000: {
 			int x = (opcode & 0x0F00) >> 8;
 			int y = (opcode & 0x00F0) >> 4;
-			if(V[x] == V[y]) {
-				System.out.println("Skipping next instruction V[" + x + "] == V[" + y + "]");
-				pc += 4;
-			} else {
-				System.out.println("Skipping next instruction V[" + x + "] =/= V[" + y + "]");
+			switch(opcode & 0x000F) {
+			case 0x0002: //5XY2: Stores VX to VY in memory starting at address I (XO-CHIP)
+				storeRegisterRange(x, y);
 				pc += 2;
+				break;
+				
+			case 0x0003: //5XY3: Fills VX to VY with values from I (XO-CHIP)
+				loadRegisterRange(x, y);
+				pc += 2;
+				break;
+				
+			default: //5XY0 Skips the next instruction if VX equals VY.
+				if(V[x] == V[y]) {
+					skipNextInstruction();
+				} else {
+					pc += 2;
+				}
+				break;
 			}
 			break;
 		}
@@ -172,7 +640,6 @@ public class Chip {
 			int x = (opcode & 0x0F00) >> 8;
 			V[x] = (char)(opcode & 0x00FF);
 			pc += 2;
-			System.out.println("Setting V[" + x + "] to " + (int)V[x]);
 			break;
 		}
 			
@@ -181,7 +648,6 @@ public class Chip {
 			int nn = (opcode & 0x00FF);
 			V[x] = (char)((V[x] + nn) & 0xFF);
 			pc += 2;
-			System.out.println("Adding " + nn + " to V["+ x + "] = " + (int)V[x]);
 			break;
 		}
 		
@@ -192,17 +658,16 @@ public class Chip {
 			case 0x0000: { //8XY0: Sets VX to the value of VY
 				int x = (opcode & 0x0F00) >> 8;
 				int y = (opcode & 0x00F0) >> 4;
-				System.out.println("Setting V[" + x + "] to " + (int)V[y]);
 				V[x] = V[y];
 				pc += 2;
 				break;
 			}
 			
-			case 0x0001: { //8XY1 Sets VX to VX or VY.
+			case 0x0001: { //8XY1 Sets VX to VX or VY. The COSMAC VIP resets VF
 				int x = (opcode & 0x0F00) >> 8;
 				int y = (opcode & 0x00F0) >> 4;
-				System.out.println("Setting V[" + x + "] = V[" + x + "] | V[" + y + "]");
 				V[x] = (char)((V[x] | V[y]) & 0xFF);
+				V[0xF] &= logicFlagMask;
 				pc += 2;
 				break;
 			}
@@ -210,8 +675,8 @@ public class Chip {
 			case 0x0002: { //8XY2: Sets VX to VX AND VY
 				int x = (opcode & 0x0F00) >> 8;
 				int y = (opcode & 0x00F0) >> 4;
-				System.out.println("Set V[" + x + "] to V[" + x + "] = " + (int)V[x] + " & V[" + y + "] = " + (int)V[y] + " = " + (int)(V[x] & V[y]));
 				V[x] = (char)(V[x] & V[y]);
+				V[0xF] &= logicFlagMask;
 				pc += 2;
 				break;
 			}
@@ -219,82 +684,54 @@ public class Chip {
 			case 0x0003: { //8XY3 Sets VX to VX xor VY.
 				int x = (opcode & 0x0F00) >> 8;
 				int y = (opcode & 0x00F0) >> 4;
-				System.out.println("Setting V[" + x + "] = V[" + x + "] ^ V[" + y + "]");
 				V[x] = (char)((V[x] ^ V[y]) & 0xFF);
+				V[0xF] &= logicFlagMask;
 				pc += 2;
 				break;
 			}
-				
+			
 			case 0x0004: { //Adds VY to VX. VF is set to 1 when carry applies else to 0
 				int x = (opcode & 0x0F00) >> 8;
 				int y = (opcode & 0x00F0) >> 4;
-				System.out.print("Adding V[" + x + "] (" + (int)V[x]  + ") to V[" + y + "] (" + (int)V[y]  + ") = " + ((V[x] + V[y]) & 0xFF) + ", ");
-				if(V[y] > 0xFF - V[x]) {
-					V[0xF] = 1;
-					System.out.println("Carry!");
-				} else {
-					V[0xF] = 0;
-					System.out.println("No Carry");
-				}
-				V[x] = (char)((V[x] + V[y]) & 0xFF);
+				setResult(x, V[x] + V[y], (V[y] > 0xFF - V[x]) ? 1 : 0);
 				pc += 2;
 				break;
 			}
-			
+				
 			case 0x0005: { //VY is subtracted from VX. VF is set to 0 when there is a borrow else 1
 				int x = (opcode & 0x0F00) >> 8;
 				int y = (opcode & 0x00F0) >> 4;
-				System.out.print("V[" + x + "] = " + (int)V[x] + " V[" + y + "] = " + (int)V[y] + ", ");
-				if(V[x] > V[y]) {
-					V[0xF] = 1;
-					System.out.println("No Borrow");
-				} else {
-					V[0xF] = 0;
-					System.out.println("Borrow");
-				}
-				V[x] = (char)((V[x] - V[y]) & 0xFF);
+				setResult(x, V[x] - V[y], (V[x] + equalBias > V[y]) ? 1 : 0);
 				pc += 2;
 				break;
 			}
-			
-			case 0x0006: { //8XY6: Shift VX right by one, VF is set to the least significant bit of VX
+				
+			case 0x0006: { //8XY6: Shift VX (or VY) right by one, VF is set to the least significant bit
 				int x = (opcode & 0x0F00) >> 8;
-				V[0xF] = (char)(V[x] & 0x1);
-				V[x] = (char)(V[x] >> 1);
+				int value = V[(opcode >> shiftSource) & 0xF];
+				setResult(x, value >> 1, value & 0x1);
 				pc += 2;
-				System.out.println("Shift V[ " + x + "] >> 1 and VF to LSB of VX");
 				break;
 			}
-			
+				
 			case 0x0007: { //8XY7 Sets VX to VY minus VX. VF is set to 0 when there's a borrow, and 1 when there isn't.
 				int x = (opcode & 0x0F00) >> 8;
 				int y = (opcode & 0x00F0) >> 4;
-				
-				if(V[x] > V[y])
-					V[0xF] = 0;
-				else
-					V[0xF] = 1;
-				
-				V[x] = (char)((V[y] - V[x]) & 0xFF);
-				System.out.println("V[" + x + "] = V[" + y + "] - V[" + x + "], Applies Borrow if needed");
-				
+				setResult(x, V[y] - V[x], (V[x] > V[y]) ? 0 : 1);
 				pc += 2;
 				break;
 			}
 			
-			case 0x000E: { //8XYE Shifts VX left by one. VF is set to the value of the most significant bit of VX before the shift.
+			case 0x000E: { //8XYE Shifts VX (or VY) left by one. VF is set to the most significant bit before the shift.
 				int x = (opcode & 0x0F00) >> 8;
-				V[0xF] = (char)(V[x] & 0x80);
-				V[x] = (char)(V[x] << 1);
+				int value = V[(opcode >> shiftSource) & 0xF];
+				setResult(x, value << 1, (value & 0x80) >> flagShift);
 				pc += 2;
-				System.out.println("Shift V[ " + x + "] << 1 and VF to MSB of VX");
 				break;
 			}
 			
 				default:
-					System.err.println("Unsupported Opcode!");
-					System.exit(0);
-					break;
+					throw new UnsupportedOpcodeException(pc, opcode);
 			}
 				
 			break;
@@ -303,10 +740,8 @@ public class Chip {
 			int x = (opcode & 0x0F00) >> 8;
 			int y = (opcode & 0x00F0) >> 4;
 			if(V[x] != V[y]) {
-				System.out.println("Skipping next instruction V[" + x + "] != V[" + y + "]");
-				pc += 4;
+				skipNextInstruction();
 			} else {
-				System.out.println("Skipping next instruction V[" + x + "] !/= V[" + y + "]");
 				pc += 2;
 			}
 			break;
@@ -315,12 +750,11 @@ public class Chip {
 		case 0xA000: //ANNN: Set I to NNN
 			I = (char)(opcode & 0x0FFF);
 			pc += 2;
-			System.out.println("Set I to " + Integer.toHexString(I).toUpperCase());
 			break;
 			
-		case 0xB000: { //BNNN Jumps to the address NNN plus V0.
+		case 0xB000: { //BNNN Jumps to the address NNN plus V0 (BXNN: plus VX)
 			int nnn = opcode & 0x0FFF;
-			int extra = V[0] & 0xFF;
+			int extra = V[(opcode & jumpRegisterMask) >> 8] & 0xFF;
 			pc = (char)(nnn + extra);
 			break;
 		}
@@ -328,43 +762,19 @@ public class Chip {
 		case 0xC000: { //CXNN: Set VX to a random number and NN
 			int x = (opcode & 0x0F00) >> 8;
 			int nn = (opcode & 0x00FF);
-			int randomNumber = new Random().nextInt(255) & nn;
-			System.out.println("V[" + x + "] has been set to (randomised) " + randomNumber);
+			int randomNumber = nextRandom() & nn;
 			V[x] = (char)randomNumber;
 			pc += 2;
 			break;
 		}
 			
-		case 0xD000: { //DXYN: Draw a sprite (X, Y) size (8, N). Sprite is located at I
+		case 0xD000: { //DXYN: Draw a sprite (X, Y) size (8, N), DXY0: size (16, 16). Sprite is located at I, wrapped or clipped
 			int x = V[(opcode & 0x0F00) >> 8];
 			int y = V[(opcode & 0x00F0) >> 4];
 			int height = opcode & 0x000F;
 			
-			V[0xF] = 0;
-			
-			for(int _y = 0; _y < height; _y++) {
-				int line = memory[I + _y];
-				for(int _x = 0; _x < 8; _x++) {
-					int pixel = line & (0x80 >> _x);
-					if(pixel != 0) {
-						int totalX = x + _x;
-						int totalY = y + _y;
-						
-						totalX = totalX % 64;
-						totalY = totalY % 32;
-						
-						int index = (totalY * 64) + totalX;
-						
-						if(display[index] == 1)
-							V[0xF] = 1;
-						
-						display[index] ^= 1;
-					}
-				}
-			}
+			V[0xF] = (char)drawSprite(x, y, height, spriteRowOverflow, spriteWrapMask);
 			pc += 2;
-			needRedraw = true;
-			System.out.println("Drawing at V[" + ((opcode & 0x0F00) >> 8) + "] = " + x + ", V[" + ((opcode & 0x00F0) >> 4) + "] = " + y);
 			break;
 		}
 		
@@ -373,31 +783,27 @@ public class Chip {
 			case 0x009E: { //EX9E Skip the next instruction if the Key VX is pressed
 				int x = (opcode & 0x0F00) >> 8;
 				int key = V[x];
-				if(keys[key] == 1) {
-					pc += 4;
+				if(isKeyPressed(key)) {
+					skipNextInstruction();
 				} else {
 					pc += 2;
 				}
-				System.out.println("Skipping next instruction if V[" + x + "] = " + ((int)V[x])+ " is pressed");
 				break;
 			}
 				
 			case 0x00A1: { //EXA1 Skip the next instruction if the Key VX is NOT pressed
 				int x = (opcode & 0x0F00) >> 8;
 				int key = V[x];
-				if(keys[key] == 0) {
-					pc += 4;
+				if(!isKeyPressed(key)) {
+					skipNextInstruction();
 				} else {
 					pc += 2;
 				}
-				System.out.println("Skipping next instruction if V[" + x + "] = " + (int)V[x] + " is NOT pressed");
 				break;
 			}
 				
 				default:
-					System.err.println("Unexisting opcode");
-					System.exit(0);
-					return;
+					throw new UnsupportedOpcodeException(pc, opcode);
 			}
 			break;
 		}
@@ -406,24 +812,36 @@ public class Chip {
 			
 			switch(opcode & 0x00FF) {
 			
+			case 0x0000: //F000 NNNN: Sets I to the 16-bit address following the opcode (XO-CHIP)
+				I = (char)((memory[pc + 2] << 8) | memory[pc + 3]);
+				pc += 4;
+				break;
+			
+			case 0x0001: //FN01: Selects the bit planes N (XO-CHIP)
+				setPlaneMask((opcode & 0x0F00) >> 8);
+				pc += 2;
+				break;
+			
+			case 0x0002: //F002: Loads the audio pattern at I (XO-CHIP), ignored as the beep is a fixed square wave
+				pc += 2;
+				break;
+			
 			case 0x0007: { //FX07: Set VX to the value of delay_timer
 				int x = (opcode & 0x0F00) >> 8;
 				V[x] = (char)delay_timer;
 				pc += 2;
-				System.out.println("V[" + x + "] has been set to " + delay_timer);
 				break;
 			}
 			
 			case 0x000A: { //FX0A A key press is awaited, and then stored in VX.
 				int x = (opcode & 0x0F00) >> 8;
-				for(int i = 0; i < keys.length; i++) {
-					if(keys[i] == 1) {
-						V[x] = (char)i;
-						pc += 2;
-						break;
-					}
+				int key = getPressedKey();
+				if(key != -1) {
+					V[x] = (char)key;
+					pc += 2;
+				} else {
+					waitingForKey = true;
 				}
-				System.out.println("Awaiting key press to be stored in V[" + x + "]");
 				break;
 			}
 			
@@ -431,7 +849,6 @@ public class Chip {
 				int x = (opcode & 0x0F00) >> 8;
 				delay_timer = V[x];
 				pc += 2;
-				System.out.println("Set delay_timer to V[" + x + "] = " + (int)V[x]);
 				break;
 			}
 			
@@ -445,7 +862,6 @@ public class Chip {
 			case 0x001E: { //FX1E: Adds VX to I
 				int x = (opcode & 0x0F00) >> 8;
 				I = (char)(I + V[x]);
-				System.out.println("Adding V[" + x + "] = " + (int)V[x] + " to I");
 				pc += 2;
 				break;
 			}
@@ -454,11 +870,21 @@ public class Chip {
 				int x = (opcode & 0x0F00) >> 8;
 				int character = V[x];
 				I = (char)(0x050 + (character * 5));
-				System.out.println("Setting I to Character V[" + x + "] = " + (int)V[x] + " Offset to 0x" + Integer.toHexString(I).toUpperCase());
 				pc += 2;
 				break;
 			}
 			
+			case 0x0030: { //FX30: Sets I to the location of the big sprite for the digit VX (SUPER-CHIP)
+				int x = (opcode & 0x0F00) >> 8;
+				I = (char)(0x0A0 + ((V[x] & 0xF) * 10));
+				pc += 2;
+				break;
+			}
+			
+			case 0x003A: //FX3A: Sets the audio pitch to VX (XO-CHIP), ignored like F002
+				pc += 2;
+				break;
+			
 			case 0x0033: { //FX33 Store a binary-coded decimal value VX in I, I + 1 and I + 2
 				int x = (opcode & 0x0F00) >> 8;
 				int value = V[x];
@@ -466,20 +892,19 @@ public class Chip {
 				value -= hundreds * 100;
 				int tens = (value - (value % 10))/ 10;
 				value -= tens * 10;
-				memory[I] = (char)hundreds;
-				memory[I + 1] = (char)tens;
-				memory[I + 2] = (char)value;
-				System.out.println("Storing Binary-Coded Decimal V[" + x + "] = " + (int)(V[(opcode & 0x0F00) >> 8]) + " as { " + hundreds+ ", " + tens + ", " + value + "}");
+				writeMemory(I, hundreds);
+				writeMemory(I + 1, tens);
+				writeMemory(I + 2, value);
 				pc += 2;
 				break;
 			}
 			
-			case 0x0055: { //FX55 Stores V0 to VX in memory starting at address I.
+			case 0x0055: { //FX55 Stores V0 to VX in memory starting at address I, the increment of I depends on the quirks
 				int x = (opcode & 0x0F00) >> 8;
 				for(int i = 0; i <= x; i++) { 
-					memory[I + i] = V[i];
+					writeMemory(I + i, V[i]);
 				}
-				System.out.println("Setting Memory[" + Integer.toHexString(I & 0xFFFF).toUpperCase() + " + n] = V[0] to V[x]");
+				I = (char)(I + (x * storeScale) + storeIncrement);
 				pc += 2;
 				break;
 			}
@@ -489,48 +914,782 @@ public class Chip {
 				for(int i = 0; i <= x; i++) { 
 					V[i] = memory[I + i];
 				}
-				System.out.println("Setting V[0] to V[" + x + "] to the values of memory[0x" + Integer.toHexString(I & 0xFFFF).toUpperCase() + "]");
-				I = (char)(I + x + 1);
+				I = (char)(I + (x * loadScale) + loadIncrement);
+				pc += 2;
+				break;
+			}
+			
+			case 0x0075: { //FX75 Stores V0 to VX in the RPL user flags (SUPER-CHIP)
+				int x = (opcode & 0x0F00) >> 8;
+				storeFlags(x);
+				pc += 2;
+				break;
+			}
+			
+			case 0x0085: { //FX85 Fills V0 to VX from the RPL user flags (SUPER-CHIP)
+				int x = (opcode & 0x0F00) >> 8;
+				loadFlags(x);
 				pc += 2;
 				break;
 			}
 			
 			default:
-				System.err.println("Unsupported Opcode!");
-				System.exit(0);
+				throw new UnsupportedOpcodeException(pc, opcode);
 			}
 			break;
 		
 			default:
-				System.err.println("Unsupported Opcode!");
-				System.exit(0);
-		}
-		
-		if(sound_timer > 0) {
-			sound_timer--;
-			Audio.playSound("./beep.wav");
+				throw new UnsupportedOpcodeException(pc, opcode);
 		}
-		if(delay_timer > 0)
-			delay_timer--;
 	}
 	
 	/**
-	 * Returns the display data
-	 * @return
-	 * Current state of the 64x32 display
+	 * Stores the result of an arithmetic opcode in VX and its flag in VF, in the order of the {@link #quirks}<br/>
+	 * The result is computed before either is written, so only the order decides what VF holds when X is F. The
+	 * order is picked by {@link #resultFlagMask} instead of a branch
+	 * @param x
+	 * @param result
+	 * The new value of VX before it is cut to 8 bit
+	 * @param flag
 	 */
-	public byte[] getDisplay() {
-		return display;
+	private void setResult(int x, int result, int flag) {
+		V[0xF] = (char)flag;
+		V[x] = (char)(result & 0xFF);
+		V[0xF] = (char)((V[0xF] & resultFlagMask) | (flag & ~resultFlagMask));
 	}
-
+	
 	/**
-	 * Checks if there is a redraw needed
-	 * @return
-	 * If a redraw is needed
+	 * Clears the selected bit planes
 	 */
-	public boolean needsRedraw() {
-		return needRedraw;
-	}
+	public void clearDisplay() {
+		for(int plane = 0; plane < PLANES; plane++) {
+			if((planeMask & (1 << plane)) != 0) {
+				Arrays.fill(display, plane * PLANE_SIZE, (plane + 1) * PLANE_SIZE, 0L);
+			}
+		}
+		displayChanged(-1L);
+	}
+	
+	/**
+	 * XORs a sprite located at I onto the selected bit planes<br/>
+	 * Each sprite line is rotated into position so the whole row is XORed at once, wrapping around horizontally.
+	 * In high resolution the row is rotated as a single 128-bit value over its two longs<br/>
+	 * With two planes selected the sprite data for the second plane directly follows the data of the first
+	 * @param x
+	 * The x coordinate of the top-left corner
+	 * @param y
+	 * The y coordinate of the top-left corner
+	 * @param height
+	 * The amount of 8 pixel wide lines the sprite has, 0 for a 16x16 sprite
+	 * @return
+	 * 1 if a set pixel has been erased, otherwise 0
+	 */
+	public int drawSprite(int x, int y, int height) {
+		return drawSprite(x, y, height, 16, -1L);
+	}
+	
+	/**
+	 * XORs a sprite located at I onto the selected bit planes like {@link #drawSprite(int, int, int)}, but the parts
+	 * beyond the right and the bottom edge are cut off instead of wrapping around ({@link Quirks#clipsSprites()})<br/>
+	 * Only the position itself wraps
+	 * @param x
+	 * The x coordinate of the top-left corner
+	 * @param y
+	 * The y coordinate of the top-left corner
+	 * @param height
+	 * The amount of 8 pixel wide lines the sprite has, 0 for a 16x16 sprite
+	 * @return
+	 * 1 if a set pixel has been erased, otherwise 0
+	 */
+	public int drawClippedSprite(int x, int y, int height) {
+		return drawSprite(x, y, height, 0, 0L);
+	}
+	
+	/**
+	 * Draws a sprite either wrapped or clipped without branching on the choice, so the switch interpreter passes
+	 * the values resolved from the {@link #quirks}
+	 * @param x
+	 * @param y
+	 * @param height
+	 * @param rowOverflow
+	 * The lines which may extend below the bottom edge and wrap to the top, the rest is cut off
+	 * @param wrapMask
+	 * The bits shifted out at the right edge which come back in at the left
+	 * @return
+	 * 1 if a set pixel has been erased, otherwise 0
+	 */
+	private int drawSprite(int x, int y, int height, int rowOverflow, long wrapMask) {
+		boolean wide = height == 0;
+		int lines = wide ? 16 : height;
+		int lineSize = wide ? 2 : 1;
+		x %= displayWidth;
+		y %= displayHeight;
+		int visible = Math.min(lines, displayHeight - y + rowOverflow);
+		long collision = 0;
+		long rows = 0;
+		int address = I;
+		
+		for(int plane = 0; plane < PLANES; plane++) {
+			if((planeMask & (1 << plane)) == 0) {
+				continue;
+			}
+			
+			for(int _y = 0; _y < visible; _y++) {
+				long line;
+				if(wide) {
+					line = ((long)memory[address] << 56) | ((long)memory[address + 1] << 48);
+				} else {
+					line = (long)memory[address] << 56;
+				}
+				address += lineSize;
+				int row = (y + _y) % displayHeight;
+				int index = (plane * PLANE_SIZE) + (row * 2);
+				
+				if(highResolution) {
+					long left = line;
+					long right = 0;
+					int shift = x;
+					if(shift >= 64) {
+						left = 0;
+						right = line;
+						shift -= 64;
+					}
+					if(shift != 0) {
+						long carry = (right << (64 - shift)) & wrapMask;
+						right = (right >>> shift) | (left << (64 - shift));
+						left = (left >>> shift) | carry;
+					}
+					collision |= (display[index] & left) | (display[index + 1] & right);
+					display[index] ^= left;
+					display[index + 1] ^= right;
+				} else {
+					long mask = Long.rotateRight(line, x) & ((-1L >>> x) | wrapMask);
+					collision |= display[index] & mask;
+					display[index] ^= mask;
+				}
+				rows |= 1L << row;
+			}
+			//The data of the next plane follows the lines which were cut off
+			address += (lines - visible) * lineSize;
+		}
+		displayChanged(rows);
+		return (collision != 0) ? 1 : 0;
+	}
+	
+	/**
+	 * Scrolls the selected bit planes down (00CN)
+	 * @param amount
+	 * The amount of rows
+	 */
+	public void scrollDown(int amount) {
+		amount = Math.min(amount, displayHeight);
+		for(int plane = 0; plane < PLANES; plane++) {
+			if((planeMask & (1 << plane)) != 0) {
+				int offset = plane * PLANE_SIZE;
+				System.arraycopy(display, offset, display, offset + (amount * 2), (displayHeight - amount) * 2);
+				Arrays.fill(display, offset, offset + (amount * 2), 0L);
+			}
+		}
+		displayChanged(-1L);
+	}
+	
+	/**
+	 * Scrolls the selected bit planes up (00DN)
+	 * @param amount
+	 * The amount of rows
+	 */
+	public void scrollUp(int amount) {
+		amount = Math.min(amount, displayHeight);
+		for(int plane = 0; plane < PLANES; plane++) {
+			if((planeMask & (1 << plane)) != 0) {
+				int offset = plane * PLANE_SIZE;
+				System.arraycopy(display, offset + (amount * 2), display, offset, (displayHeight - amount) * 2);
+				Arrays.fill(display, offset + ((displayHeight - amount) * 2), offset + (displayHeight * 2), 0L);
+			}
+		}
+		displayChanged(-1L);
+	}
+	
+	/**
+	 * Scrolls the selected bit planes 4 pixels right (00FB)
+	 */
+	public void scrollRight() {
+		for(int plane = 0; plane < PLANES; plane++) {
+			if((planeMask & (1 << plane)) == 0) {
+				continue;
+			}
+			for(int row = 0; row < displayHeight; row++) {
+				int index = (plane * PLANE_SIZE) + (row * 2);
+				if(highResolution) {
+					display[index + 1] = (display[index + 1] >>> 4) | (display[index] << 60);
+				}
+				display[index] >>>= 4;
+			}
+		}
+		displayChanged(-1L);
+	}
+	
+	/**
+	 * Scrolls the selected bit planes 4 pixels left (00FC)
+	 */
+	public void scrollLeft() {
+		for(int plane = 0; plane < PLANES; plane++) {
+			if((planeMask & (1 << plane)) == 0) {
+				continue;
+			}
+			for(int row = 0; row < displayHeight; row++) {
+				int index = (plane * PLANE_SIZE) + (row * 2);
+				if(highResolution) {
+					display[index] = (display[index] << 4) | (display[index + 1] >>> 60);
+					display[index + 1] <<= 4;
+				} else {
+					display[index] <<= 4;
+				}
+			}
+		}
+		displayChanged(-1L);
+	}
+	
+	/**
+	 * Switches between the 64x32 and the 128x64 mode (00FE, 00FF), which clears all bit planes
+	 * @param highResolution
+	 */
+	public void setHighResolution(boolean highResolution) {
+		this.highResolution = highResolution;
+		displayWidth = highResolution ? MAX_WIDTH : MAX_WIDTH / 2;
+		displayHeight = highResolution ? MAX_HEIGHT : MAX_HEIGHT / 2;
+		Arrays.fill(display, 0L);
+		displayChanged(-1L);
+	}
+	
+	/**
+	 * Checks if the display is in the 128x64 mode
+	 * @return
+	 */
+	public boolean isHighResolution() {
+		return highResolution;
+	}
+	
+	/**
+	 * Gets the width of the display in the current mode
+	 * @return
+	 * 64 or 128
+	 */
+	public int getDisplayWidth() {
+		return displayWidth;
+	}
+	
+	/**
+	 * Gets the height of the display in the current mode
+	 * @return
+	 * 32 or 64
+	 */
+	public int getDisplayHeight() {
+		return displayHeight;
+	}
+	
+	/**
+	 * Gets the bit planes which are drawn, scrolled and cleared
+	 * @return
+	 * Bit n is set if plane n is selected
+	 */
+	public int getPlaneMask() {
+		return planeMask;
+	}
+	
+	/**
+	 * Selects the bit planes which are drawn, scrolled and cleared (FN01)
+	 * @param planeMask
+	 * Bit n selects plane n
+	 */
+	public void setPlaneMask(int planeMask) {
+		this.planeMask = planeMask & ((1 << PLANES) - 1);
+	}
+	
+	/**
+	 * Flags the rows for the next redraw
+	 * @param rows
+	 * One bit per changed row
+	 */
+	private void displayChanged(long rows) {
+		needRedraw = true;
+		displayViewDirty = true;
+		dirtyRows |= rows;
+	}
+	
+	/**
+	 * Gets the data from one of the 16 V registers
+	 * @param index
+	 * The register index (0x0 - 0xF)
+	 * @return
+	 * The 8-bit register value
+	 */
+	public int getRegister(int index) {
+		return V[index];
+	}
+	
+	/**
+	 * Writes an 8-bit value into one of the 16 V registers
+	 * @param index
+	 * The register index (0x0 - 0xF)
+	 * @param value
+	 * The value, only the lower 8 bits are stored
+	 */
+	public void setRegister(int index, int value) {
+		V[index] = (char)(value & 0xFF);
+	}
+	
+	/**
+	 * Gets the I register
+	 * @return
+	 * The 16-bit address stored in I
+	 */
+	public int getIndex() {
+		return I;
+	}
+	
+	/**
+	 * Sets the I register
+	 * @param value
+	 * The 16-bit address to store in I
+	 */
+	public void setIndex(int value) {
+		I = (char)value;
+	}
+	
+	/**
+	 * Gets the program counter
+	 * @return
+	 * The address of the current operation
+	 */
+	public int getProgramCounter() {
+		return pc;
+	}
+	
+	/**
+	 * Sets the program counter
+	 * @param pc
+	 * The address of the next operation
+	 */
+	public void setProgramCounter(int pc) {
+		this.pc = (char)pc;
+	}
+	
+	/**
+	 * Read a byte from the memory
+	 * @param address
+	 * @return
+	 */
+	public int readMemory(int address) {
+		return memory[address];
+	}
+	
+	/**
+	 * Write a byte to the memory
+	 * @param address
+	 * @param value
+	 */
+	public void writeMemory(int address, int value) {
+		memory[address] = (char)(value & 0xFF);
+		if(blockCache != null) {
+			blockCache.invalidate(address);
+		}
+	}
+	
+	/**
+	 * Gets the size of the memory
+	 * @return
+	 * The amount of addressable bytes
+	 */
+	public int getMemorySize() {
+		return memory.length;
+	}
+	
+	/**
+	 * Skips the opcode after the current one<br/>
+	 * F000 NNNN (XO-CHIP) is 4 bytes long and is skipped as a whole
+	 */
+	public void skipNextInstruction() {
+		if(memory[pc + 2] == 0xF0 && memory[pc + 3] == 0x00) {
+			pc += 6;
+		} else {
+			pc += 4;
+		}
+	}
+	
+	/**
+	 * Stores VX to VY in the memory starting at I, in reverse order if X is greater than Y (5XY2)<br/>
+	 * I is not changed
+	 * @param x
+	 * @param y
+	 */
+	public void storeRegisterRange(int x, int y) {
+		int step = (x <= y) ? 1 : -1;
+		int count = Math.abs(y - x);
+		for(int i = 0; i <= count; i++) {
+			writeMemory(I + i, V[x + (i * step)]);
+		}
+	}
+	
+	/**
+	 * Fills VX to VY with the memory starting at I, in reverse order if X is greater than Y (5XY3)<br/>
+	 * I is not changed
+	 * @param x
+	 * @param y
+	 */
+	public void loadRegisterRange(int x, int y) {
+		int step = (x <= y) ? 1 : -1;
+		int count = Math.abs(y - x);
+		for(int i = 0; i <= count; i++) {
+			V[x + (i * step)] = memory[I + i];
+		}
+	}
+	
+	/**
+	 * Stores V0 to VX in the RPL user flags (FX75)
+	 * @param x
+	 */
+	public void storeFlags(int x) {
+		for(int i = 0; i <= x; i++) {
+			flags[i] = V[i];
+		}
+	}
+	
+	/**
+	 * Fills V0 to VX from the RPL user flags (FX85)
+	 * @param x
+	 */
+	public void loadFlags(int x) {
+		for(int i = 0; i <= x; i++) {
+			V[i] = flags[i];
+		}
+	}
+	
+	/**
+	 * Stops executing opcodes until the next reset (00FD)
+	 */
+	public void exit() {
+		halted = true;
+	}
+	
+	/**
+	 * Checks if the program has exited with 00FD
+	 * @return
+	 */
+	public boolean isHalted() {
+		return halted;
+	}
+	
+	/**
+	 * Jumps to the address (1NNN) and checks if that closed an idle loop:<br/>
+	 * - A jump to itself<br/>
+	 * - FX07, 3XNN/4XNN, 1NNN back to the FX07: polling the delay timer, which only changes between frames<br/>
+	 * Either way the rest of the frame would only repeat the loop, so {@link #runFrame(int)} skips it
+	 * @param address
+	 */
+	public void jump(int address) {
+		int from = pc;
+		pc = (char)address;
+		if(address == from) {
+			idleLoopLength = 1;
+		} else if(address == from - 4 && isDelayPollingLoop(address)) {
+			idleLoopLength = 3;
+		}
+	}
+	
+	/**
+	 * Checks for FX07 followed by 3XNN or 4XNN on the same register
+	 * @param address
+	 * @return
+	 */
+	private boolean isDelayPollingLoop(int address) {
+		int first = (memory[address] << 8) | memory[address + 1];
+		int second = (memory[address + 2] << 8) | memory[address + 3];
+		if((first & 0xF0FF) != 0xF007) {
+			return false;
+		}
+		int condition = second & 0xF000;
+		return (condition == 0x3000 || condition == 0x4000) && (second & 0x0F00) == (first & 0x0F00);
+	}
+	
+	/**
+	 * Pushes the current program counter on the callstack and jumps to the given address
+	 * @param address
+	 * The address of the subroutine
+	 */
+	public void callSubroutine(int address) {
+		stack[stackPointer] = pc;
+		stackPointer++;
+		pc = (char)address;
+	}
+	
+	/**
+	 * Pops the callstack and continues after the call which got us here
+	 */
+	public void returnFromSubroutine() {
+		stackPointer--;
+		pc = (char)(stack[stackPointer] + 2);
+	}
+	
+	/**
+	 * Gets the amount of return addresses on the callstack
+	 * @return
+	 */
+	public int getStackPointer() {
+		return stackPointer;
+	}
+	
+	/**
+	 * Gets a return address from the callstack
+	 * @param index
+	 * 0 for the oldest call
+	 * @return
+	 * The address of the 2NNN which made the call
+	 */
+	public int getStackEntry(int index) {
+		return stack[index];
+	}
+	
+	/**
+	 * Gets a RPL user flag (FX75)
+	 * @param index
+	 * @return
+	 */
+	public int getFlag(int index) {
+		return flags[index];
+	}
+	
+	/**
+	 * Gets the delay timer
+	 * @return
+	 */
+	public int getDelayTimer() {
+		return delay_timer;
+	}
+	
+	/**
+	 * Sets the delay timer
+	 * @param value
+	 */
+	public void setDelayTimer(int value) {
+		delay_timer = value;
+	}
+	
+	/**
+	 * Gets the sound timer
+	 * @return
+	 */
+	public int getSoundTimer() {
+		return sound_timer;
+	}
+	
+	/**
+	 * Marks the chip as blocked on FX0A until a key is pressed
+	 */
+	public void awaitKey() {
+		waitingForKey = true;
+	}
+	
+	/**
+	 * Checks if the chip is blocked on FX0A
+	 * @return
+	 */
+	public boolean isWaitingForKey() {
+		return waitingForKey;
+	}
+	
+	/**
+	 * Checks if nothing will change until a key is pressed: the chip waits on FX0A and both timers have run out
+	 * @return
+	 */
+	public boolean isIdleUntilKeyPress() {
+		return waitingForKey && delay_timer == 0 && sound_timer == 0;
+	}
+	
+	/**
+	 * Gets the keypad the keys are taken from
+	 * @return
+	 * The keypad or null if there is none
+	 */
+	public Keypad getKeypad() {
+		return keypad;
+	}
+	
+	/**
+	 * Sets the sound timer
+	 * @param value
+	 */
+	public void setSoundTimer(int value) {
+		sound_timer = value;
+	}
+	
+	/**
+	 * Checks if a key is being held down
+	 * @param key
+	 * The key index (0x0 - 0xF)
+	 * @return
+	 * If the key is pressed
+	 */
+	public boolean isKeyPressed(int key) {
+		return ((keys >>> (key & 0xF)) & 1) != 0;
+	}
+	
+	/**
+	 * Finds the first key which is being held down
+	 * @return
+	 * The key index or -1 if no key is pressed
+	 */
+	public int getPressedKey() {
+		if(keys == 0) {
+			return -1;
+		}
+		return Integer.numberOfTrailingZeros(keys);
+	}
+	
+	/**
+	 * Gets the amount of frames executed since the last reset
+	 * @return
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+	
+	/**
+	 * Gets the amount of opcodes executed since the last reset
+	 * @return
+	 */
+	public long getInstructionCount() {
+		return instructionCount;
+	}
+	
+	/**
+	 * Sets the audio output for the sound timer
+	 * @param audio
+	 * The started audio or null to stay silent
+	 */
+	public void setAudio(Audio audio) {
+		this.audio = audio;
+	}
+	
+	/**
+	 * Gets the trace buffer
+	 * @return
+	 * The buffer or null if tracing is off
+	 */
+	public TraceBuffer getTraceBuffer() {
+		return trace;
+	}
+	
+	/**
+	 * Starts recording every executed opcode into the buffer
+	 * @param trace
+	 * The buffer to record into, null turns tracing off
+	 */
+	public void setTraceBuffer(TraceBuffer trace) {
+		this.trace = trace;
+	}
+	
+	/**
+	 * Gets the profiler
+	 * @return
+	 * The profiler or null if profiling is off
+	 */
+	public Profiler getProfiler() {
+		return profiler;
+	}
+	
+	/**
+	 * Starts counting every executed opcode
+	 * @param profiler
+	 * The profiler to count with, null turns profiling off
+	 */
+	public void setProfiler(Profiler profiler) {
+		this.profiler = profiler;
+	}
+	
+	/**
+	 * Gets the way opcodes are being executed
+	 * @return
+	 */
+	public ExecutionMode getExecutionMode() {
+		return executionMode;
+	}
+	
+	/**
+	 * Selects the way opcodes are being executed
+	 * @param executionMode
+	 */
+	public void setExecutionMode(ExecutionMode executionMode) {
+		this.executionMode = executionMode;
+	}
+	
+	/**
+	 * Returns the display data
+	 * @return
+	 * Current state of the display, one byte per pixel for {@link #getDisplayWidth()} pixels per row and
+	 * {@link #getDisplayHeight()} rows. Bit 0 is the pixel of the first plane, bit 1 of the second
+	 */
+	public byte[] getDisplay() {
+		if(displayView == null) {
+			displayView = new byte[MAX_WIDTH * MAX_HEIGHT];
+			displayViewDirty = true;
+		}
+		if(displayViewDirty) {
+			displayViewDirty = false;
+			for(int y = 0; y < displayHeight; y++) {
+				for(int x = 0; x < displayWidth; x++) {
+					displayView[(y * displayWidth) + x] = (byte)getPixel(x, y);
+				}
+			}
+		}
+		return displayView;
+	}
+	
+	/**
+	 * Gets a single pixel
+	 * @param x
+	 * @param y
+	 * @return
+	 * Bit 0 is the pixel of the first plane, bit 1 of the second
+	 */
+	public int getPixel(int x, int y) {
+		int index = (y * 2) + (x >>> 6);
+		int shift = 63 - (x & 63);
+		long first = (display[index] >>> shift) & 1;
+		long second = (display[PLANE_SIZE + index] >>> shift) & 1;
+		return (int)(first | (second << 1));
+	}
+	
+	/**
+	 * Returns the packed display data
+	 * @return
+	 * Current state of both bit planes, two longs per row with the leftmost pixel as most significant bit of the
+	 * first one. Plane n starts at n * {@link #PLANE_SIZE}, in low resolution only the first long of the first 32 rows
+	 * is used
+	 */
+	public long[] getDisplayRows() {
+		return display;
+	}
+
+	/**
+	 * Gets the rows which changed since the last call and resets them
+	 * @return
+	 * One bit per display row, bit 0 being the top row
+	 */
+	public long pollDirtyRows() {
+		long rows = dirtyRows;
+		dirtyRows = 0;
+		return rows;
+	}
+
+	/**
+	 * Checks if there is a redraw needed
+	 * @return
+	 * If a redraw is needed
+	 */
+	public boolean needsRedraw() {
+		return needRedraw;
+	}
 
 	/**
 	 * Notify the chip that is has been redrawn
@@ -540,44 +1699,345 @@ public class Chip {
 	}
 
 	/**
-	 * Loads the program into the memory
+	 * Calculates the size of a save state in bytes:<br/>
+	 * magic (4), version (2), memory size (4), memory, V (16), I (2), pc (2), stack (16 * 2), stackPointer (1),
+	 * delay_timer (1), sound_timer (1), keys (2), mode (1), planeMask (1), flags (16), display (2 * 128 * 8),
+	 * instructionCount (8), frameEnd (8), frameCount (8), randomState (4)
+	 * @param memorySize
+	 * @return
+	 */
+	public static int getStateSize(int memorySize) {
+		return 4 + 2 + 4 + memorySize + 16 + 2 + 2 + 32 + 1 + 1 + 1 + 2 + 1 + 1 + 16 + (PLANES * PLANE_SIZE * 8) + 8 + 8 + 8 + 4;
+	}
+	
+	/**
+	 * Gets the size of a save state of this chip
+	 * @return
+	 */
+	public int getStateSize() {
+		return getStateSize(memory.length);
+	}
+	
+	/**
+	 * Gets the machine this chip acts as
+	 * @return
+	 */
+	public Platform getPlatform() {
+		return platform;
+	}
+	
+	/**
+	 * Gets the quirk profile the chip was initialized with
+	 * @return
+	 */
+	public Quirks getQuirks() {
+		return quirks;
+	}
+	
+	/**
+	 * Writes the complete machine state into the buffer at its current position<br/>
+	 * Doesn't allocate, so it is cheap enough to be done every frame
+	 * @param buffer
+	 * A buffer with at least {@link #getStateSize()} bytes remaining, its byte order is set to little-endian
+	 */
+	public void saveState(ByteBuffer buffer) {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(STATE_MAGIC);
+		buffer.putShort((short)STATE_VERSION);
+		buffer.putInt(memory.length);
+		for(int i = 0; i < memory.length; i++) {
+			buffer.put((byte)memory[i]);
+		}
+		for(int i = 0; i < V.length; i++) {
+			buffer.put((byte)V[i]);
+		}
+		buffer.putShort((short)I);
+		buffer.putShort((short)pc);
+		for(int i = 0; i < stack.length; i++) {
+			buffer.putShort((short)stack[i]);
+		}
+		buffer.put((byte)stackPointer);
+		buffer.put((byte)delay_timer);
+		buffer.put((byte)sound_timer);
+		buffer.putShort((short)keys);
+		buffer.put((byte)((highResolution ? 1 : 0) | (halted ? 2 : 0)));
+		buffer.put((byte)planeMask);
+		for(int i = 0; i < flags.length; i++) {
+			buffer.put((byte)flags[i]);
+		}
+		for(int i = 0; i < display.length; i++) {
+			buffer.putLong(display[i]);
+		}
+		buffer.putLong(instructionCount);
+		buffer.putLong(frameEnd);
+		buffer.putLong(frameCount);
+		buffer.putInt(randomState);
+	}
+	
+	/**
+	 * Restores the complete machine state from the buffer at its current position<br/>
+	 * While recording, the key changes from the restored frame on are dropped from the {@link InputRecorder}
+	 * @param buffer
+	 * A buffer containing a state written by {@link #saveState(ByteBuffer)}, its byte order is set to little-endian
+	 * @throws IllegalArgumentException
+	 * If the buffer doesn't contain a save state of a supported version and the same memory size
+	 */
+	public void loadState(ByteBuffer buffer) {
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		if(buffer.getInt() != STATE_MAGIC) {
+			throw new IllegalArgumentException("Not a Chip 8 save state");
+		}
+		int version = buffer.getShort() & 0xFFFF;
+		if(version != STATE_VERSION) {
+			throw new IllegalArgumentException("Unsupported save state version " + version);
+		}
+		int memorySize = buffer.getInt();
+		if(memorySize != memory.length) {
+			throw new IllegalArgumentException("Save state has " + memorySize + " bytes of memory instead of " + memory.length);
+		}
+		
+		for(int i = 0; i < memory.length; i++) {
+			memory[i] = (char)(buffer.get() & 0xFF);
+		}
+		for(int i = 0; i < V.length; i++) {
+			V[i] = (char)(buffer.get() & 0xFF);
+		}
+		I = (char)buffer.getShort();
+		pc = (char)buffer.getShort();
+		for(int i = 0; i < stack.length; i++) {
+			stack[i] = (char)buffer.getShort();
+		}
+		stackPointer = buffer.get() & 0xFF;
+		delay_timer = buffer.get() & 0xFF;
+		sound_timer = buffer.get() & 0xFF;
+		keys = buffer.getShort() & 0xFFFF;
+		int mode = buffer.get();
+		highResolution = (mode & 1) != 0;
+		halted = (mode & 2) != 0;
+		displayWidth = highResolution ? MAX_WIDTH : MAX_WIDTH / 2;
+		displayHeight = highResolution ? MAX_HEIGHT : MAX_HEIGHT / 2;
+		setPlaneMask(buffer.get());
+		for(int i = 0; i < flags.length; i++) {
+			flags[i] = (char)(buffer.get() & 0xFF);
+		}
+		for(int i = 0; i < display.length; i++) {
+			display[i] = buffer.getLong();
+		}
+		instructionCount = buffer.getLong();
+		frameEnd = buffer.getLong();
+		frameStart = instructionCount;
+		frameCount = buffer.getLong();
+		waitingForKey = false;
+		randomState = buffer.getInt();
+		if(inputRecorder != null) {
+			//The restored keys are those of the changes before this frame, the later ones never happened
+			inputRecorder.truncate(frameCount);
+		}
+		
+		if(blockCache != null) {
+			blockCache.clear();
+		}
+		needRedraw = true;
+		displayViewDirty = true;
+		dirtyRows = -1L;
+	}
+	
+	/**
+	 * Writes the complete machine state to the channel
+	 * @param channel
+	 * @throws IOException
+	 */
+	public void saveState(WritableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(getStateSize());
+		saveState(buffer);
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+	
+	/**
+	 * Restores the complete machine state from the channel
+	 * @param channel
+	 * @throws IOException
+	 * If the channel fails or doesn't contain a supported save state
+	 */
+	public void loadState(ReadableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(getStateSize());
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer) == -1) {
+				throw new IOException("Save state is truncated");
+			}
+		}
+		buffer.flip();
+		try {
+			loadState(buffer);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+	
+	/**
+	 * Loads the program into the memory, the file is only read once per process, see {@link RomCache}
 	 * @param file
 	 * The location of the program
+	 * @throws IOException
+	 * If the file can't be read or the program doesn't fit into the memory
 	 */
-	public void loadProgram(String file) {
-		DataInputStream input = null;
+	public void loadProgram(String file) throws IOException {
+		Rom rom = RomCache.load(file);
 		try {
-			input = new DataInputStream(new FileInputStream(new File(file)));
-			
-			int offset = 0;
-			while(input.available() > 0) {
-				memory[0x200 + offset] = (char)(input.readByte() & 0xFF);
-				offset++;
-			}
-			
-		} catch (IOException e) {
-			e.printStackTrace();
-			System.exit(0);
-		} finally {
-			if(input != null) {
-				try { input.close(); } catch (IOException ex) {}
-			}
+			loadProgram(rom);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(file + ": " + e.getMessage(), e);
 		}
 	}
 	
 	/**
-	 * Loads the fontset into the memory
+	 * Loads the program into the memory
+	 * @param rom
+	 * @throws IllegalArgumentException
+	 * If the program doesn't fit into the memory of the platform
+	 */
+	public void loadProgram(Rom rom) {
+		int available = memory.length - Rom.START_ADDRESS;
+		if(rom.getSize() > available) {
+			throw new IllegalArgumentException("The program has " + rom.getSize() + " bytes, " + platform + " only has room for " + available);
+		}
+		rom.copyTo(memory);
+		if(blockCache != null) {
+			blockCache.clear();
+		}
+	}
+	
+	/**
+	 * Decodes the blocks for {@link ExecutionMode#BLOCK} and {@link ExecutionMode#JIT} ahead of time instead of when
+	 * they are first executed
+	 * @param addresses
+	 * The block starts, for example from {@link chip.analysis.ControlFlowGraph#getBlockStarts()}
+	 */
+	public void predecodeBlocks(int[] addresses) {
+		BlockCache blockCache = getBlockCache();
+		for(int address : addresses) {
+			blockCache.get(this, address);
+		}
+	}
+	
+	/**
+	 * Gets the decoded blocks, creating the cache the first time<br/>
+	 * Chips which never run in {@link ExecutionMode#BLOCK} or {@link ExecutionMode#JIT} don't pay for the cache
+	 * @return
+	 */
+	private BlockCache getBlockCache() {
+		if(blockCache == null) {
+			blockCache = new BlockCache(memory.length, opcodeTable);
+		}
+		return blockCache;
+	}
+	
+	/**
+	 * Gets the compiler of {@link ExecutionMode#JIT}, which defines the classes as nestmates of the chip
+	 * @return
+	 */
+	private BlockCompiler getBlockCompiler() {
+		if(blockCompiler == null) {
+			blockCompiler = new BlockCompiler(MethodHandles.lookup(), quirks);
+		}
+		return blockCompiler;
+	}
+	
+	/**
+	 * Loads the fontset and the big fontset into the memory
 	 */
 	public void loadFontset() {
 		for(int i = 0; i < ChipData.fontset.length; i++) {
 			memory[0x50 + i] = (char)(ChipData.fontset[i] & 0xFF);
 		}
+		for(int i = 0; i < ChipData.bigFontset.length; i++) {
+			memory[0xA0 + i] = (char)(ChipData.bigFontset[i] & 0xFF);
+		}
 	}
 	
-	public void setKeyBuffer(int[] keyBuffer) {
-		for(int i = 0; i < keys.length; i++) {
-			keys[i] = (byte)keyBuffer[i];
+	/**
+	 * Sets the keyboard state directly, used when there is no {@link Keypad}
+	 * @param mask
+	 * Bit n is set if key n is pressed
+	 */
+	public void setKeyMask(int mask) {
+		mask &= 0xFFFF;
+		if(mask != keys) {
+			keys = mask;
+			if(inputRecorder != null) {
+				inputRecorder.record(frameCount, mask);
+			}
 		}
 	}
+	
+	/**
+	 * Gets the keys as a single mask
+	 * @return
+	 * Bit n is set if key n is pressed
+	 */
+	public int getKeyMask() {
+		return keys;
+	}
+	
+	/**
+	 * Attaches the keypad which is read at the start of every frame
+	 * @param keypad
+	 */
+	public void setKeypad(Keypad keypad) {
+		this.keypad = keypad;
+	}
+	
+	/**
+	 * Starts sending every change of the keys to the recorder
+	 * @param inputRecorder
+	 * The recorder or null to stop recording
+	 */
+	public void setInputRecorder(InputRecorder inputRecorder) {
+		this.inputRecorder = inputRecorder;
+	}
+	
+	/**
+	 * Reseeds the random number generator used by CXNN<br/>
+	 * Two chips with the same seed, program and input behave exactly the same
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		randomState = toRandomState(seed);
+	}
+	
+	/**
+	 * Turns a seed into the state of the random number generator
+	 * @param seed
+	 * @return
+	 * The xorshift state, never 0
+	 */
+	public static int toRandomState(long seed) {
+		//Mix the seed (SplitMix64 finalizer) so nearby seeds give unrelated sequences
+		seed = (seed ^ (seed >>> 33)) * 0xFF51AFD7ED558CCDL;
+		seed = (seed ^ (seed >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		seed ^= seed >>> 33;
+		int state = (int)seed;
+		if(state == 0) {
+			state = 0x9E3779B9;
+		}
+		return state;
+	}
+	
+	/**
+	 * Generates the next random byte (xorshift32)
+	 * @return
+	 * A value from 0 up to and including 255
+	 */
+	public int nextRandom() {
+		int x = randomState;
+		x ^= x << 13;
+		x ^= x >>> 17;
+		x ^= x << 5;
+		randomState = x;
+		return x >>> 24;
+	}
 
 }
@@ -0,0 +1,27 @@
+package chip;
+
+/**
+ * The available ways for the {@link Chip} to execute opcodes
+ */
+public enum ExecutionMode {
+	
+	/**
+	 * Decodes every opcode with the nested switch each time it is executed
+	 */
+	SWITCH,
+	/**
+	 * Looks up a predecoded handler for the opcode in a 64K table
+	 */
+	TABLE,
+	/**
+	 * Block-chained table dispatch: caches the {@link #TABLE} handlers of each basic block and executes a whole block
+	 * per {@link Chip#run()}, so the fetch and the run loop are paid once per block instead of once per opcode
+	 */
+	BLOCK,
+	/**
+	 * Compiles the hot basic blocks of {@link #BLOCK} to JVM bytecode in hidden classes, see
+	 * {@link chip.block.BlockCompiler}. A block which fails to compile is run by the {@link #SWITCH} interpreter
+	 */
+	JIT
+
+}
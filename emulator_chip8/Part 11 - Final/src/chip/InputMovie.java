@@ -0,0 +1,133 @@
+package chip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A recording of everything needed to replay a run bit-exactly: the random seed, the CPU rate and every key change<br/>
+ * File format (little-endian): magic "C8MV" (4), version (2), seed (8), instructions per frame (4), length in frames (4),
+ * change count (4) followed by per change: frame (4), key mask (2)
+ */
+public class InputMovie {
+	
+	public static final int MAGIC = 0x564D3843;
+	public static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 + 2 + 8 + 4 + 4 + 4;
+	private static final int CHANGE_SIZE = 4 + 2;
+	
+	private final long seed;
+	private final int instructionsPerFrame;
+	private final int length;
+	/**
+	 * The frames at which the keys change, ascending
+	 */
+	private final int[] frames;
+	/**
+	 * The key mask which is set before the matching frame runs
+	 */
+	private final int[] masks;
+	
+	public InputMovie(long seed, int instructionsPerFrame, int length, int[] frames, int[] masks) {
+		this.seed = seed;
+		this.instructionsPerFrame = instructionsPerFrame;
+		this.length = length;
+		this.frames = frames;
+		this.masks = masks;
+	}
+	
+	/**
+	 * Writes the movie to the channel
+	 * @param channel
+	 * @throws IOException
+	 */
+	public void write(WritableByteChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (frames.length * CHANGE_SIZE)).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC);
+		buffer.putShort((short)VERSION);
+		buffer.putLong(seed);
+		buffer.putInt(instructionsPerFrame);
+		buffer.putInt(length);
+		buffer.putInt(frames.length);
+		for(int i = 0; i < frames.length; i++) {
+			buffer.putInt(frames[i]);
+			buffer.putShort((short)masks[i]);
+		}
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+	
+	/**
+	 * Reads a movie from the channel
+	 * @param channel
+	 * @return
+	 * @throws IOException
+	 * If the channel fails or doesn't contain a supported movie
+	 */
+	public static InputMovie read(ReadableByteChannel channel) throws IOException {
+		ByteBuffer header = readFully(channel, HEADER_SIZE);
+		if(header.getInt() != MAGIC) {
+			throw new IOException("Not a Chip 8 input movie");
+		}
+		int version = header.getShort() & 0xFFFF;
+		if(version != VERSION) {
+			throw new IOException("Unsupported input movie version " + version);
+		}
+		long seed = header.getLong();
+		int instructionsPerFrame = header.getInt();
+		int length = header.getInt();
+		int changes = header.getInt();
+		if(changes < 0 || changes > length + 1) {
+			throw new IOException("Corrupt input movie (" + changes + " changes in " + length + " frames)");
+		}
+		
+		ByteBuffer body = readFully(channel, changes * CHANGE_SIZE);
+		int[] frames = new int[changes];
+		int[] masks = new int[changes];
+		for(int i = 0; i < changes; i++) {
+			frames[i] = body.getInt();
+			masks[i] = body.getShort() & 0xFFFF;
+		}
+		return new InputMovie(seed, instructionsPerFrame, length, frames, masks);
+	}
+	
+	private static ByteBuffer readFully(ReadableByteChannel channel, int size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer) == -1) {
+				throw new IOException("Input movie is truncated");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	public int getInstructionsPerFrame() {
+		return instructionsPerFrame;
+	}
+	
+	/**
+	 * Gets the amount of frames the recording lasted
+	 * @return
+	 */
+	public int getLength() {
+		return length;
+	}
+	
+	public int[] getFrames() {
+		return frames;
+	}
+	
+	public int[] getMasks() {
+		return masks;
+	}
+
+}
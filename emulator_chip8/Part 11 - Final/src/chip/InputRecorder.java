@@ -0,0 +1,73 @@
+package chip;
+
+import java.util.Arrays;
+
+/**
+ * Collects the key changes of a chip (see {@link Chip#setInputRecorder(InputRecorder)}) into an {@link InputMovie}
+ */
+public class InputRecorder {
+	
+	private final long seed;
+	private final int instructionsPerFrame;
+	private int[] frames;
+	private int[] masks;
+	private int count;
+	
+	/**
+	 * @param seed
+	 * The seed the chip was started with
+	 * @param instructionsPerFrame
+	 * The CPU rate the chip is run at
+	 */
+	public InputRecorder(long seed, int instructionsPerFrame) {
+		this.seed = seed;
+		this.instructionsPerFrame = instructionsPerFrame;
+		frames = new int[256];
+		masks = new int[256];
+	}
+	
+	/**
+	 * Stores a key change
+	 * @param frame
+	 * The frame which will see the new keys first
+	 * @param mask
+	 * The new key mask
+	 */
+	public void record(long frame, int mask) {
+		if(count > 0 && frames[count - 1] == frame) {
+			//Only the last change before a frame is visible to it
+			masks[count - 1] = mask;
+			return;
+		}
+		if(count == frames.length) {
+			frames = Arrays.copyOf(frames, count * 2);
+			masks = Arrays.copyOf(masks, count * 2);
+		}
+		frames[count] = (int)frame;
+		masks[count] = mask;
+		count++;
+	}
+	
+	/**
+	 * Forgets the key changes from the given frame on, used when the chip goes back to an earlier state (rewind)<br/>
+	 * Keeps the frames ascending, the changes made after going back are recorded in place of the dropped ones
+	 * @param frame
+	 * The frame the chip continues with
+	 */
+	public void truncate(long frame) {
+		while(count > 0 && frames[count - 1] >= frame) {
+			count--;
+		}
+	}
+	
+	/**
+	 * Creates the movie of everything recorded so far
+	 * @param length
+	 * The amount of frames which have been run
+	 * @return
+	 */
+	public InputMovie toMovie(long length) {
+		return new InputMovie(seed, instructionsPerFrame, (int)length, Arrays.copyOf(frames, count), Arrays.copyOf(masks, count));
+	}
+
+}
@@ -0,0 +1,96 @@
+package chip;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The hexadecimal keypad, shared between the input thread and the emulation thread without locks<br/>
+ * The state is a single int: the lower 16 bits hold the keys which are held down, the upper 16 bits latch every key which
+ * has been pressed since the last {@link #poll()}. That way a press which is released before the next frame is still seen
+ * by that frame
+ */
+public class Keypad {
+	
+	private final AtomicInteger state = new AtomicInteger();
+	/**
+	 * The thread parked in {@link #awaitPress(long)}, if any
+	 */
+	private volatile Thread waiter;
+	
+	/**
+	 * Marks the key as pressed
+	 * @param key
+	 * The key index (0x0 - 0xF)
+	 */
+	public void press(int key) {
+		int bit = 1 << key;
+		int current;
+		do {
+			current = state.get();
+		} while(!state.compareAndSet(current, current | bit | (bit << 16)));
+		
+		Thread thread = waiter;
+		if(thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+	
+	/**
+	 * Marks the key as released
+	 * @param key
+	 * The key index (0x0 - 0xF)
+	 */
+	public void release(int key) {
+		int bit = 1 << key;
+		int current;
+		do {
+			current = state.get();
+		} while(!state.compareAndSet(current, current & ~bit));
+	}
+	
+	/**
+	 * Takes the keys for the next frame and resets the latched presses
+	 * @return
+	 * Bit n is set if key n is held down or has been pressed since the last poll
+	 */
+	public int poll() {
+		int current;
+		do {
+			current = state.get();
+		} while(!state.compareAndSet(current, current & 0xFFFF));
+		return (current | (current >>> 16)) & 0xFFFF;
+	}
+	
+	/**
+	 * Parks the calling thread until a key is held down or has been pressed since the last poll
+	 * @param timeoutNanos
+	 * The maximum time to wait
+	 * @return
+	 * If a key has been pressed
+	 */
+	public boolean awaitPress(long timeoutNanos) {
+		long deadline = System.nanoTime() + timeoutNanos;
+		waiter = Thread.currentThread();
+		try {
+			while(state.get() == 0) {
+				long remaining = deadline - System.nanoTime();
+				if(remaining <= 0) {
+					return false;
+				}
+				LockSupport.parkNanos(this, remaining);
+			}
+			return true;
+		} finally {
+			waiter = null;
+		}
+	}
+	
+	/**
+	 * Gets the keys which are held down right now
+	 * @return
+	 */
+	public int getHeld() {
+		return state.get() & 0xFFFF;
+	}
+
+}
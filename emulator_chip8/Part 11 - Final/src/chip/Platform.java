@@ -0,0 +1,36 @@
+package chip;
+
+/**
+ * The machines the {@link Chip} can act as<br/>
+ * The SUPER-CHIP and XO-CHIP opcodes are always decoded, the platform decides how much memory there is
+ */
+public enum Platform {
+
+	/**
+	 * The original 4 kB Chip 8
+	 */
+	CHIP8(0x1000),
+	/**
+	 * SUPER-CHIP 1.1: 128x64 mode, scrolling, 16x16 sprites and the big font in 4 kB
+	 */
+	SUPERCHIP(0x1000),
+	/**
+	 * XO-CHIP: SUPER-CHIP with 64 kB of memory and two bit planes
+	 */
+	XOCHIP(0x10000);
+
+	private final int memorySize;
+
+	private Platform(int memorySize) {
+		this.memorySize = memorySize;
+	}
+
+	/**
+	 * Gets the amount of addressable bytes
+	 * @return
+	 */
+	public int getMemorySize() {
+		return memorySize;
+	}
+
+}
@@ -0,0 +1,131 @@
+package chip;
+
+/**
+ * The behaviours the Chip 8 interpreters disagree on<br/>
+ * A profile is resolved once when the chip is initialized: {@link chip.opcode.OpcodeTable#getTable(Quirks)} builds
+ * handlers with the behaviour already chosen, and the switch interpreter turns it into shifts and masks, so no opcode
+ * tests a quirk while it runs
+ */
+public enum Quirks {
+
+	/**
+	 * The mixture this emulator always ran with: 8XY6 and 8XYE shift VX, only FX65 increments I, BNNN adds V0 and
+	 * sprites wrap around. 8XY5 sets VF to 0 for equal registers, 8XYE sets it to 0x80 and the arithmetic opcodes
+	 * write VF before VX<br/>
+	 * The default, so recorded movies and save states play back the same
+	 */
+	LEGACY(false, -1, 1, false, false, false, false),
+	/**
+	 * The original COSMAC VIP interpreter: the shifts read VY, FX55 and FX65 increment I by X + 1, the logic
+	 * opcodes reset VF and sprites are clipped at the edges
+	 */
+	COSMAC_VIP(true, 1, 1, false, true, true, true),
+	/**
+	 * CHIP-48 on the HP 48: the shifts read VX, FX55 and FX65 increment I by X only and BNNN jumps to XNN + VX
+	 */
+	CHIP48(false, 0, 0, true, true, false, true),
+	/**
+	 * SUPER-CHIP 1.1: like CHIP-48 but FX55 and FX65 leave I untouched
+	 */
+	SUPERCHIP(false, -1, -1, true, true, false, true),
+	/**
+	 * XO-CHIP (Octo): the shifts read VY, FX55 and FX65 increment I by X + 1 and sprites wrap around
+	 */
+	XOCHIP(true, 1, 1, false, false, false, true);
+
+	private final boolean shiftVY;
+	/**
+	 * FX55 and FX65 move I by X plus these, -1 to leave I untouched
+	 */
+	private final int storeIncrement;
+	private final int loadIncrement;
+	private final boolean jumpVX;
+	private final boolean clipSprites;
+	private final boolean resetFlag;
+	private final boolean exactFlags;
+
+	private Quirks(boolean shiftVY, int storeIncrement, int loadIncrement, boolean jumpVX, boolean clipSprites,
+			boolean resetFlag, boolean exactFlags) {
+		this.shiftVY = shiftVY;
+		this.storeIncrement = storeIncrement;
+		this.loadIncrement = loadIncrement;
+		this.jumpVX = jumpVX;
+		this.clipSprites = clipSprites;
+		this.resetFlag = resetFlag;
+		this.exactFlags = exactFlags;
+	}
+
+	/**
+	 * Checks if 8XY6 and 8XYE shift VY into VX instead of shifting VX itself
+	 * @return
+	 */
+	public boolean shiftsVY() {
+		return shiftVY;
+	}
+
+	/**
+	 * Gets how far FX55 moves I for a given X
+	 * @param x
+	 * @return
+	 * The amount added to I
+	 */
+	public int getStoreIncrement(int x) {
+		return increment(x, storeIncrement);
+	}
+
+	/**
+	 * Gets how far FX65 moves I for a given X
+	 * @param x
+	 * @return
+	 * The amount added to I
+	 */
+	public int getLoadIncrement(int x) {
+		return increment(x, loadIncrement);
+	}
+
+	/**
+	 * @param x
+	 * @param extra
+	 * The amount added to X, -1 if I stays untouched
+	 * @return
+	 */
+	private static int increment(int x, int extra) {
+		return (extra < 0) ? 0 : x + extra;
+	}
+
+	/**
+	 * Checks if BNNN is BXNN: a jump to XNN plus VX instead of NNN plus V0
+	 * @return
+	 */
+	public boolean jumpsWithVX() {
+		return jumpVX;
+	}
+
+	/**
+	 * Checks if the parts of a sprite beyond the edges of the display are cut off instead of wrapping around<br/>
+	 * The position itself always wraps
+	 * @return
+	 */
+	public boolean clipsSprites() {
+		return clipSprites;
+	}
+
+	/**
+	 * Checks if 8XY1, 8XY2 and 8XY3 set VF to 0
+	 * @return
+	 */
+	public boolean resetsFlag() {
+		return resetFlag;
+	}
+
+	/**
+	 * Checks if 8XY5 and 8XYE set VF like the real machines: 1 without a borrow also for equal registers, and the
+	 * shifted out bit as 0 or 1<br/>
+	 * 8XY4 to 8XYE then also write VF after VX, so with X = F the flag is kept instead of the result
+	 * @return
+	 */
+	public boolean hasExactFlags() {
+		return exactFlags;
+	}
+
+}
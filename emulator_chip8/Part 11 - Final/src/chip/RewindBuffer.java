@@ -0,0 +1,324 @@
+package chip;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Keeps a bounded history of save states to step a chip back in time frame by frame<br/>
+ * Every {@link #keyframeInterval} frames a full state is stored, the frames in between only store the bytes which differ
+ * from that keyframe (as skip/length/bytes runs). All data lives in a single preallocated arena, the oldest frames are
+ * dropped when it runs full
+ */
+public class RewindBuffer {
+	
+	/**
+	 * The maximum amount of frames kept
+	 */
+	private final int maxFrames;
+	private final int keyframeInterval;
+	/**
+	 * The size of a single save state, depends on the memory size of the chip
+	 */
+	private final int stateSize;
+	/**
+	 * The encoded frames, written as a ring
+	 */
+	private final byte[] arena;
+	
+	/**
+	 * Per frame slot: the offset and length of the data in the arena
+	 */
+	private final int[] offset;
+	private final int[] length;
+	/**
+	 * Per frame slot: the slot of the keyframe this frame is encoded against (itself for keyframes)
+	 */
+	private final int[] keyframe;
+	
+	/**
+	 * The slot of the oldest frame
+	 */
+	private int head;
+	/**
+	 * The amount of frames kept
+	 */
+	private int count;
+	/**
+	 * The arena position the next frame is written to
+	 */
+	private int writePosition;
+	/**
+	 * The frames captured since the last keyframe
+	 */
+	private int framesSinceKeyframe;
+	
+	/**
+	 * The unencoded keyframe the next frame is compared against
+	 */
+	private final byte[] keyState;
+	private final byte[] state;
+	private final ByteBuffer stateBuffer;
+	/**
+	 * Space for the worst case delta
+	 */
+	private final byte[] delta;
+	
+	/**
+	 * Creates a buffer for 60 seconds of history in 2 MB with a keyframe every second for a chip with 4kB of memory
+	 */
+	public RewindBuffer() {
+		this(Chip.STATE_SIZE);
+	}
+	
+	/**
+	 * Creates a buffer for 60 seconds of history in 2 MB with a keyframe every second
+	 * @param stateSize
+	 * The save state size of the chip, see {@link Chip#getStateSize()}
+	 */
+	public RewindBuffer(int stateSize) {
+		this(60 * 60, 2 * 1024 * 1024, 60, stateSize);
+	}
+	
+	/**
+	 * @param maxFrames
+	 * The maximum amount of frames kept
+	 * @param arenaSize
+	 * The amount of bytes available for the encoded frames
+	 * @param keyframeInterval
+	 * The amount of frames between full states
+	 * @param stateSize
+	 * The save state size of the chip, see {@link Chip#getStateSize()}
+	 */
+	public RewindBuffer(int maxFrames, int arenaSize, int keyframeInterval, int stateSize) {
+		this.maxFrames = maxFrames;
+		this.stateSize = stateSize;
+		this.keyframeInterval = keyframeInterval;
+		arena = new byte[Math.max(arenaSize, stateSize * 2)];
+		offset = new int[maxFrames];
+		length = new int[maxFrames];
+		keyframe = new int[maxFrames];
+		keyState = new byte[stateSize];
+		state = new byte[stateSize];
+		stateBuffer = ByteBuffer.wrap(state);
+		delta = new byte[stateSize * 3];
+	}
+	
+	/**
+	 * Stores the current state of the chip as the newest frame<br/>
+	 * Should be called after every frame
+	 * @param chip
+	 */
+	public void capture(Chip chip) {
+		stateBuffer.clear();
+		chip.saveState(stateBuffer);
+		
+		boolean isKeyframe = count == 0 || framesSinceKeyframe + 1 >= keyframeInterval;
+		int size = 0;
+		if(!isKeyframe) {
+			size = encode(keyState, state, delta);
+			if(size > stateSize / 2) {
+				//Too many changes, a fresh keyframe makes the next deltas smaller
+				isKeyframe = true;
+			}
+		}
+		if(isKeyframe) {
+			size = stateSize;
+		}
+		
+		int position = allocate(size);
+		if(!isKeyframe && count == 0) {
+			//The keyframe this delta is based on had to make room for it
+			isKeyframe = true;
+			size = stateSize;
+			position = allocate(size);
+		}
+		int slot = (head + count) % maxFrames;
+		offset[slot] = position;
+		length[slot] = size;
+		if(isKeyframe) {
+			System.arraycopy(state, 0, arena, position, size);
+			System.arraycopy(state, 0, keyState, 0, size);
+			keyframe[slot] = slot;
+			framesSinceKeyframe = 0;
+		} else {
+			System.arraycopy(delta, 0, arena, position, size);
+			keyframe[slot] = keyframe[(slot + maxFrames - 1) % maxFrames];
+			framesSinceKeyframe++;
+		}
+		count++;
+	}
+	
+	/**
+	 * Restores the newest frame into the chip and forgets it
+	 * @param chip
+	 * @return
+	 * false if there is no history left
+	 */
+	public boolean rewind(Chip chip) {
+		if(count == 0) {
+			return false;
+		}
+		
+		int slot = (head + count - 1) % maxFrames;
+		int key = keyframe[slot];
+		System.arraycopy(arena, offset[key], state, 0, stateSize);
+		if(key != slot) {
+			decode(arena, offset[slot], length[slot], state);
+		}
+		stateBuffer.clear();
+		chip.loadState(stateBuffer);
+		
+		count--;
+		writePosition = offset[slot];
+		if(count > 0) {
+			//Continue encoding against the keyframe of the new newest frame
+			int newest = (head + count - 1) % maxFrames;
+			int newestKey = keyframe[newest];
+			System.arraycopy(arena, offset[newestKey], keyState, 0, stateSize);
+			framesSinceKeyframe = (newest - newestKey + maxFrames) % maxFrames;
+		}
+		return true;
+	}
+	
+	/**
+	 * Forgets all frames
+	 */
+	public void clear() {
+		head = 0;
+		count = 0;
+		writePosition = 0;
+		framesSinceKeyframe = 0;
+	}
+	
+	/**
+	 * Gets the amount of frames which can be rewound
+	 * @return
+	 */
+	public int size() {
+		return count;
+	}
+	
+	/**
+	 * Reserves room for a frame in the arena, dropping the oldest frames which are in the way
+	 * @param size
+	 * @return
+	 * The arena offset to write to
+	 */
+	private int allocate(int size) {
+		if(count == maxFrames) {
+			dropOldest();
+		}
+		
+		int position = writePosition;
+		if(position + size > arena.length) {
+			//The frames in the unused tail are the oldest ones, they'd be out of order after wrapping
+			while(count > 0 && offset[head] >= position) {
+				dropOldest();
+			}
+			position = 0;
+		}
+		while(count > 0 && offset[head] < position + size && offset[head] + length[head] > position) {
+			dropOldest();
+		}
+		writePosition = position + size;
+		return position;
+	}
+	
+	/**
+	 * Drops the oldest frame and every following frame which was encoded against it
+	 */
+	private void dropOldest() {
+		int key = head;
+		do {
+			head = (head + 1) % maxFrames;
+			count--;
+		} while(count > 0 && keyframe[head] == key);
+		
+		if(count == 0) {
+			head = 0;
+			framesSinceKeyframe = 0;
+		}
+	}
+	
+	/**
+	 * Stores the differences between two states as runs of: skip (varint), length (varint), bytes
+	 * @return
+	 * The amount of bytes written
+	 */
+	private static int encode(byte[] base, byte[] current, byte[] out) {
+		int position = 0;
+		int i = 0;
+		int last = 0;
+		while(i < current.length) {
+			if(base[i] == current[i]) {
+				i++;
+				continue;
+			}
+			
+			int start = i;
+			while(i < current.length) {
+				if(base[i] != current[i]) {
+					i++;
+					continue;
+				}
+				//Swallow short equal gaps, a new run costs at least 2 bytes
+				int gap = i;
+				while(gap < current.length && gap - i < 3 && base[gap] == current[gap]) {
+					gap++;
+				}
+				if(gap < current.length && gap - i < 3) {
+					i = gap;
+				} else {
+					break;
+				}
+			}
+			
+			position = writeVarint(out, position, start - last);
+			position = writeVarint(out, position, i - start);
+			System.arraycopy(current, start, out, position, i - start);
+			position += i - start;
+			last = i;
+		}
+		return position;
+	}
+	
+	/**
+	 * Applies the runs written by {@link #encode(byte[], byte[], byte[])} onto a copy of the base state
+	 */
+	private static void decode(byte[] in, int position, int length, byte[] state) {
+		int end = position + length;
+		int target = 0;
+		while(position < end) {
+			int skip = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = in[position++];
+				skip |= (b & 0x7F) << shift;
+				shift += 7;
+			} while((b & 0x80) != 0);
+			
+			int runLength = 0;
+			shift = 0;
+			do {
+				b = in[position++];
+				runLength |= (b & 0x7F) << shift;
+				shift += 7;
+			} while((b & 0x80) != 0);
+			
+			target += skip;
+			System.arraycopy(in, position, state, target, runLength);
+			position += runLength;
+			target += runLength;
+		}
+	}
+	
+	private static int writeVarint(byte[] out, int position, int value) {
+		while(value >= 0x80) {
+			out[position++] = (byte)((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out[position++] = (byte)value;
+		return position;
+	}
+
+}
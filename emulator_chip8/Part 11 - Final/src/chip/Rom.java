@@ -0,0 +1,67 @@
+package chip;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The unchanging content of a program file, shared by every chip which loads it<br/>
+ * Identified by the SHA-1 of the content, see {@link RomCache}
+ */
+public class Rom {
+	
+	/**
+	 * The address every program is loaded to
+	 */
+	public static final int START_ADDRESS = 0x200;
+	
+	private final byte[] data;
+	private final String sha1;
+	
+	/**
+	 * @param data
+	 * The content, which must not be changed afterwards
+	 * @param sha1
+	 * The SHA-1 of the content as 40 lowercase hex digits
+	 */
+	Rom(byte[] data, String sha1) {
+		this.data = data;
+		this.sha1 = sha1;
+	}
+	
+	/**
+	 * Gets the size of the program in bytes
+	 * @return
+	 */
+	public int getSize() {
+		return data.length;
+	}
+	
+	/**
+	 * Gets the SHA-1 of the content
+	 * @return
+	 * 40 lowercase hex digits
+	 */
+	public String getSha1() {
+		return sha1;
+	}
+	
+	/**
+	 * Gets the content without copying it
+	 * @return
+	 * A read-only buffer over the whole program
+	 */
+	public ByteBuffer getData() {
+		return ByteBuffer.wrap(data).asReadOnlyBuffer();
+	}
+	
+	/**
+	 * Copies the program into the memory of a chip at {@link #START_ADDRESS}
+	 * @param memory
+	 * A memory with at least {@link #getSize()} bytes after the start address
+	 */
+	void copyTo(char[] memory) {
+		for(int i = 0; i < data.length; i++) {
+			memory[START_ADDRESS + i] = (char)(data[i] & 0xFF);
+		}
+	}
+
+}
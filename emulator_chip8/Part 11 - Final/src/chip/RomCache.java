@@ -0,0 +1,126 @@
+package chip;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loads program files once per process<br/>
+ * A file is read in a single bulk read of a {@link FileChannel} and only read again once its size or modification
+ * time changes. Files with the same content share one {@link Rom}, found by the SHA-1 of the content, so running many
+ * instances of a ROM neither rereads nor copies it
+ */
+public class RomCache {
+	
+	/**
+	 * The largest program any {@link Platform} can hold: the XO-CHIP memory after the start address
+	 */
+	public static final int MAX_SIZE = 0x10000 - Rom.START_ADDRESS;
+	
+	/**
+	 * What a file contained when it was read last
+	 */
+	private static class Entry {
+		
+		private final long size;
+		private final long modified;
+		private final Rom rom;
+		
+		private Entry(long size, long modified, Rom rom) {
+			this.size = size;
+			this.modified = modified;
+			this.rom = rom;
+		}
+	
+	}
+	
+	private static final ConcurrentHashMap<Path, Entry> files = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<String, Rom> roms = new ConcurrentHashMap<>();
+	
+	/**
+	 * Gets the content of a program file, reading it only if it isn't cached or changed since
+	 * @param file
+	 * The location of the program
+	 * @return
+	 * @throws IOException
+	 * If the file can't be read, is empty or larger than {@link #MAX_SIZE}
+	 */
+	public static Rom load(String file) throws IOException {
+		Path path = Paths.get(file).toAbsolutePath().normalize();
+		long size = Files.size(path);
+		long modified = Files.getLastModifiedTime(path).toMillis();
+		Entry entry = files.get(path);
+		if(entry != null && entry.size == size && entry.modified == modified) {
+			return entry.rom;
+		}
+		
+		byte[] data = read(path);
+		String sha1 = sha1(data);
+		Rom rom = roms.get(sha1);
+		if(rom == null) {
+			Rom loaded = new Rom(data, sha1);
+			rom = roms.putIfAbsent(sha1, loaded);
+			if(rom == null) {
+				rom = loaded;
+			}
+		}
+		files.put(path, new Entry(data.length, modified, rom));
+		return rom;
+	}
+	
+	/**
+	 * Reads a whole program file
+	 * @param path
+	 * @return
+	 * @throws IOException
+	 * If the file can't be read, is empty or larger than {@link #MAX_SIZE}
+	 */
+	private static byte[] read(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path)) {
+			long size = channel.size();
+			if(size == 0) {
+				throw new IOException(path + " is empty");
+			}
+			if(size > MAX_SIZE) {
+				throw new IOException(path + " has " + size + " bytes, no program can be larger than " + MAX_SIZE);
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int)size);
+			while(buffer.hasRemaining()) {
+				if(channel.read(buffer) == -1) {
+					throw new IOException(path + " is truncated");
+				}
+			}
+			return buffer.array();
+		}
+	}
+	
+	private static String sha1(byte[] data) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			//Every Java platform has to provide SHA-1
+			throw new IllegalStateException(e);
+		}
+		StringBuilder hex = new StringBuilder(40);
+		for(byte b : digest.digest(data)) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+	
+	/**
+	 * Forgets every file and program
+	 */
+	public static void clear() {
+		files.clear();
+		roms.clear();
+	}
+
+}
@@ -0,0 +1,32 @@
+package chip;
+
+/**
+ * Thrown when a chip reaches an opcode which isn't part of its instruction set (including 0NNN)<br/>
+ * Only the failing chip is affected: it stays on the opcode, so running it again throws again
+ */
+public class UnsupportedOpcodeException extends IllegalStateException {
+	
+	private static final long serialVersionUID = 1L;
+	private final int address;
+	private final int opcode;
+	
+	/**
+	 * @param address
+	 * The address of the opcode
+	 * @param opcode
+	 */
+	public UnsupportedOpcodeException(int address, int opcode) {
+		super(String.format("Unsupported opcode %04X at %03X", opcode, address));
+		this.address = address;
+		this.opcode = opcode;
+	}
+	
+	public int getAddress() {
+		return address;
+	}
+	
+	public int getOpcode() {
+		return opcode;
+	}
+
+}
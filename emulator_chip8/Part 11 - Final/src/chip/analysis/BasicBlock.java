@@ -0,0 +1,94 @@
+package chip.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A straight run of opcodes found by the {@link Disassembler}: only the first one is a branch target and only the last
+ * one changes the control flow
+ */
+public class BasicBlock {
+	
+	/**
+	 * The address of the first opcode
+	 */
+	private final int start;
+	/**
+	 * The address right after the last opcode
+	 */
+	private int end;
+	/**
+	 * The addresses of the opcodes in execution order
+	 */
+	private final List<Integer> addresses;
+	/**
+	 * The blocks which can be executed next
+	 */
+	private final List<Integer> successors;
+	/**
+	 * The subroutine called by the last opcode (2NNN), -1 if it isn't a call
+	 */
+	private int callTarget;
+	/**
+	 * If the block ends with a jump which can't be followed (BNNN) or runs into an unsupported opcode
+	 */
+	private boolean unresolved;
+	
+	public BasicBlock(int start) {
+		this.start = start;
+		this.end = start;
+		addresses = new ArrayList<>();
+		successors = new ArrayList<>();
+		callTarget = -1;
+	}
+	
+	/**
+	 * Appends an opcode to the block
+	 * @param address
+	 * @param length
+	 * The size of the opcode in bytes
+	 */
+	void add(int address, int length) {
+		addresses.add(address);
+		end = address + length;
+	}
+	
+	void addSuccessor(int address) {
+		if(!successors.contains(address)) {
+			successors.add(address);
+		}
+	}
+	
+	void setCallTarget(int callTarget) {
+		this.callTarget = callTarget;
+	}
+	
+	void setUnresolved(boolean unresolved) {
+		this.unresolved = unresolved;
+	}
+	
+	public int getStart() {
+		return start;
+	}
+	
+	public int getEnd() {
+		return end;
+	}
+	
+	public List<Integer> getAddresses() {
+		return addresses;
+	}
+	
+	public List<Integer> getSuccessors() {
+		return successors;
+	}
+	
+	public int getCallTarget() {
+		return callTarget;
+	}
+	
+	public boolean isUnresolved() {
+		return unresolved;
+	}
+
+}
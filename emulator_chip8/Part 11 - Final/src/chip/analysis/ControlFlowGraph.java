@@ -0,0 +1,189 @@
+package chip.analysis;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import chip.Chip;
+import chip.trace.TraceDecoder;
+
+/**
+ * The basic blocks of a program and how they are connected, as found by the {@link Disassembler}
+ */
+public class ControlFlowGraph {
+	
+	/**
+	 * The chip whose memory was analysed, used to list the opcodes
+	 */
+	private final Chip chip;
+	/**
+	 * The blocks by start address
+	 */
+	private final Map<Integer, BasicBlock> blocks;
+	/**
+	 * The addresses called by 2NNN
+	 */
+	private final Set<Integer> subroutines;
+	/**
+	 * The addresses of the BNNN opcodes whose target isn't known
+	 */
+	private final Set<Integer> indirectJumps;
+	
+	ControlFlowGraph(Chip chip) {
+		this.chip = chip;
+		blocks = new TreeMap<>();
+		subroutines = new TreeSet<>();
+		indirectJumps = new TreeSet<>();
+	}
+	
+	void addBlock(BasicBlock block) {
+		blocks.put(block.getStart(), block);
+	}
+	
+	void addSubroutine(int address) {
+		subroutines.add(address);
+	}
+	
+	void addIndirectJump(int address) {
+		indirectJumps.add(address);
+	}
+	
+	/**
+	 * Gets the blocks sorted by address
+	 * @return
+	 */
+	public Collection<BasicBlock> getBlocks() {
+		return blocks.values();
+	}
+	
+	/**
+	 * Gets the block starting at the address
+	 * @param address
+	 * @return
+	 * The block or null if no block starts there
+	 */
+	public BasicBlock getBlock(int address) {
+		return blocks.get(address);
+	}
+	
+	public Set<Integer> getSubroutines() {
+		return subroutines;
+	}
+	
+	public Set<Integer> getIndirectJumps() {
+		return indirectJumps;
+	}
+	
+	/**
+	 * Gets the block map: the start addresses of all blocks, for example to compile them before the program runs
+	 * @return
+	 * The addresses in ascending order
+	 */
+	public int[] getBlockStarts() {
+		int[] starts = new int[blocks.size()];
+		int i = 0;
+		for(int start : blocks.keySet()) {
+			starts[i++] = start;
+		}
+		return starts;
+	}
+	
+	/**
+	 * Writes the subroutines followed by every block with its opcodes and successors
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeText(Appendable out) throws IOException {
+		String newLine = System.lineSeparator();
+		out.append(String.format("%d blocks, %d subroutines", blocks.size(), subroutines.size())).append(newLine);
+		out.append("Subroutines:");
+		for(int address : subroutines) {
+			out.append(' ').append(hex(address));
+		}
+		out.append(newLine);
+		if(!indirectJumps.isEmpty()) {
+			out.append("Indirect jumps:");
+			for(int address : indirectJumps) {
+				out.append(' ').append(hex(address));
+			}
+			out.append(newLine);
+		}
+		
+		for(BasicBlock block : blocks.values()) {
+			out.append(newLine).append("block ").append(hex(block.getStart()));
+			if(block.getStart() == 0x200) {
+				out.append(" (entry)");
+			} else if(subroutines.contains(block.getStart())) {
+				out.append(" (subroutine)");
+			}
+			out.append(newLine);
+			for(int address : block.getAddresses()) {
+				int opcode = readOpcode(address);
+				out.append(String.format("  %s  %04X  %s", hex(address), opcode, TraceDecoder.describe(opcode))).append(newLine);
+			}
+			if(block.getCallTarget() != -1) {
+				out.append("  calls ").append(hex(block.getCallTarget())).append(newLine);
+			}
+			if(!block.getSuccessors().isEmpty()) {
+				out.append("  ->");
+				for(int successor : block.getSuccessors()) {
+					out.append(' ').append(hex(successor));
+				}
+				out.append(newLine);
+			}
+			if(block.isUnresolved()) {
+				out.append("  -> ?").append(newLine);
+			}
+		}
+	}
+	
+	/**
+	 * Writes the graph in the DOT language of Graphviz<br/>
+	 * Control flow edges are solid, calls are dashed
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeDot(Appendable out) throws IOException {
+		String newLine = System.lineSeparator();
+		out.append("digraph chip8 {").append(newLine);
+		out.append("\tnode [shape=box, fontname=\"monospace\"];").append(newLine);
+		for(BasicBlock block : blocks.values()) {
+			StringBuilder label = new StringBuilder();
+			for(int address : block.getAddresses()) {
+				int opcode = readOpcode(address);
+				label.append(String.format("%s  %04X  %s\\l", hex(address), opcode, TraceDecoder.describe(opcode)));
+			}
+			out.append('\t').append(node(block.getStart())).append(" [label=\"").append(label).append('"');
+			if(block.getStart() == 0x200 || subroutines.contains(block.getStart())) {
+				out.append(", penwidth=2");
+			}
+			out.append("];").append(newLine);
+		}
+		for(BasicBlock block : blocks.values()) {
+			for(int successor : block.getSuccessors()) {
+				out.append('\t').append(node(block.getStart())).append(" -> ").append(node(successor)).append(';').append(newLine);
+			}
+			if(block.getCallTarget() != -1 && blocks.containsKey(block.getCallTarget())) {
+				out.append('\t').append(node(block.getStart())).append(" -> ").append(node(block.getCallTarget()));
+				out.append(" [style=dashed];").append(newLine);
+			}
+		}
+		out.append('}').append(newLine);
+	}
+	
+	private int readOpcode(int address) {
+		return (chip.readMemory(address) << 8) | chip.readMemory(address + 1);
+	}
+	
+	private static String node(int address) {
+		return String.format("b%04X", address);
+	}
+	
+	private static String hex(int address) {
+		return String.format("0x%03X", address);
+	}
+
+}
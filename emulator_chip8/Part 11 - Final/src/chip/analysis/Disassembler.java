@@ -0,0 +1,198 @@
+package chip.analysis;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import chip.Chip;
+import chip.Platform;
+import chip.profile.OpcodeClass;
+
+/**
+ * Finds the code of a program without running it<br/>
+ * Starting at 0x200 every reachable opcode is decoded, following jumps (1NNN), calls (2NNN) and both ways of a skip.
+ * The targets of BNNN depend on V0 at runtime and are not followed. The result is a {@link ControlFlowGraph}
+ */
+public class Disassembler {
+	
+	/**
+	 * Loads the program the same way the emulator does and analyses it
+	 * @param file
+	 * The location of the program
+	 * @param platform
+	 * @return
+	 * @throws IOException
+	 * If the program can't be loaded
+	 */
+	public static ControlFlowGraph analyse(String file, Platform platform) throws IOException {
+		Chip chip = new Chip();
+		chip.init(platform);
+		chip.loadProgram(file);
+		return analyse(chip);
+	}
+	
+	/**
+	 * Analyses the program in the memory of the chip, starting at 0x200
+	 * @param chip
+	 * @return
+	 */
+	public static ControlFlowGraph analyse(Chip chip) {
+		int size = chip.getMemorySize();
+		boolean[] instruction = new boolean[size];
+		boolean[] leader = new boolean[size];
+		ControlFlowGraph graph = new ControlFlowGraph(chip);
+		
+		//First pass: decode everything which is reachable and mark where blocks have to start
+		Deque<Integer> work = new ArrayDeque<>();
+		work.push(0x200);
+		leader[0x200] = true;
+		while(!work.isEmpty()) {
+			int address = work.pop();
+			while(address + 1 < size && !instruction[address]) {
+				int opcode = readOpcode(chip, address);
+				if(OpcodeClass.of(opcode) == OpcodeClass.UNSUPPORTED) {
+					break;
+				}
+				instruction[address] = true;
+				int next = address + getLength(opcode);
+				
+				if(isJump(opcode)) {
+					int target = opcode & 0x0FFF;
+					leader[target] = true;
+					work.push(target);
+					break;
+				} else if(isCall(opcode)) {
+					int target = opcode & 0x0FFF;
+					leader[target] = true;
+					work.push(target);
+					graph.addSubroutine(target);
+					markLeader(leader, next);
+				} else if(isSkip(opcode)) {
+					markLeader(leader, next);
+					if(next + 1 < size) {
+						int skipTarget = next + getLength(readOpcode(chip, next));
+						markLeader(leader, skipTarget);
+						work.push(skipTarget);
+					}
+				} else if(isExit(opcode)) {
+					if((opcode & 0xF000) == 0xB000) {
+						graph.addIndirectJump(address);
+					}
+					break;
+				}
+				address = next;
+			}
+		}
+		
+		//Second pass: cut the decoded opcodes into blocks at the leaders and after every control flow change
+		for(int start = 0; start < size; start++) {
+			if(!leader[start] || !instruction[start]) {
+				continue;
+			}
+			
+			BasicBlock block = new BasicBlock(start);
+			int address = start;
+			while(true) {
+				int opcode = readOpcode(chip, address);
+				int next = address + getLength(opcode);
+				block.add(address, next - address);
+				
+				if(isJump(opcode)) {
+					block.addSuccessor(opcode & 0x0FFF);
+					break;
+				} else if(isCall(opcode)) {
+					block.setCallTarget(opcode & 0x0FFF);
+					addFallthrough(block, instruction, next);
+					break;
+				} else if(isSkip(opcode)) {
+					addFallthrough(block, instruction, next);
+					if(next + 1 < size && instruction[next]) {
+						addFallthrough(block, instruction, next + getLength(readOpcode(chip, next)));
+					}
+					break;
+				} else if(isExit(opcode)) {
+					block.setUnresolved((opcode & 0xF000) == 0xB000);
+					break;
+				} else if(next >= size || !instruction[next] || leader[next]) {
+					addFallthrough(block, instruction, next);
+					break;
+				}
+				address = next;
+			}
+			graph.addBlock(block);
+		}
+		return graph;
+	}
+	
+	private static void markLeader(boolean[] leader, int address) {
+		if(address < leader.length) {
+			leader[address] = true;
+		}
+	}
+	
+	/**
+	 * Links the block to the opcode right after it, or marks it as running into something which isn't code
+	 * @param block
+	 * @param instruction
+	 * @param next
+	 */
+	private static void addFallthrough(BasicBlock block, boolean[] instruction, int next) {
+		if(next < instruction.length && instruction[next]) {
+			block.addSuccessor(next);
+		} else {
+			block.setUnresolved(true);
+		}
+	}
+	
+	private static int readOpcode(Chip chip, int address) {
+		return (chip.readMemory(address) << 8) | chip.readMemory(address + 1);
+	}
+	
+	/**
+	 * Gets the size of an opcode, F000 NNNN is the only one which is 4 bytes
+	 * @param opcode
+	 * @return
+	 */
+	static int getLength(int opcode) {
+		return (OpcodeClass.of(opcode) == OpcodeClass.OP_F000) ? 4 : 2;
+	}
+	
+	private static boolean isJump(int opcode) {
+		return (opcode & 0xF000) == 0x1000;
+	}
+	
+	private static boolean isCall(int opcode) {
+		return (opcode & 0xF000) == 0x2000;
+	}
+	
+	private static boolean isSkip(int opcode) {
+		switch(OpcodeClass.of(opcode)) {
+		case OP_3XNN:
+		case OP_4XNN:
+		case OP_5XY0:
+		case OP_9XY0:
+		case OP_EX9E:
+		case OP_EXA1:
+			return true;
+		default:
+			return false;
+		}
+	}
+	
+	/**
+	 * Checks for opcodes after which the next one isn't known: 00EE, 00FD and BNNN
+	 * @param opcode
+	 * @return
+	 */
+	private static boolean isExit(int opcode) {
+		switch(OpcodeClass.of(opcode)) {
+		case OP_00EE:
+		case OP_00FD:
+		case OP_BNNN:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package chip.block;
+
+import chip.opcode.IOpcode;
+
+/**
+ * A decoded basic block: a straight run of opcodes which only ends with (or right before) a control flow change or
+ * with a write into the memory
+ */
+public class Block {
+	
+	/**
+	 * The address of the first opcode
+	 */
+	private final int start;
+	/**
+	 * The address right after the last opcode
+	 */
+	private final int end;
+	/**
+	 * The opcodes in execution order
+	 */
+	private final char[] opcodes;
+	/**
+	 * The predecoded handlers of the {@link #opcodes}
+	 */
+	private final IOpcode[] handlers;
+	/**
+	 * Cleared as soon as any byte within the block is overwritten
+	 */
+	private boolean valid;
+	/**
+	 * The generated code of {@link chip.ExecutionMode#JIT}, null until the block got hot
+	 */
+	private ICompiledBlock compiled;
+	/**
+	 * Set if generating the code failed, the block is then interpreted
+	 */
+	private boolean uncompilable;
+	/**
+	 * The amount of complete runs before it got compiled
+	 */
+	private int executions;
+	
+	public Block(int start, char[] opcodes, IOpcode[] handlers) {
+		this.start = start;
+		this.end = start + (handlers.length * 2);
+		this.opcodes = opcodes;
+		this.handlers = handlers;
+		this.valid = true;
+	}
+	
+	/**
+	 * Checks if the address is part of this block
+	 * @param address
+	 * @return
+	 */
+	public boolean contains(int address) {
+		return address >= start && address < end;
+	}
+	
+	public void invalidate() {
+		valid = false;
+	}
+	
+	public boolean isValid() {
+		return valid;
+	}
+	
+	public int getStart() {
+		return start;
+	}
+	
+	public int getEnd() {
+		return end;
+	}
+	
+	public char[] getOpcodes() {
+		return opcodes;
+	}
+	
+	public IOpcode[] getHandlers() {
+		return handlers;
+	}
+	
+	public ICompiledBlock getCompiled() {
+		return compiled;
+	}
+	
+	public void setCompiled(ICompiledBlock compiled) {
+		this.compiled = compiled;
+	}
+	
+	public boolean isUncompilable() {
+		return uncompilable;
+	}
+	
+	public void setUncompilable() {
+		uncompilable = true;
+	}
+	
+	/**
+	 * Counts a complete run of the block
+	 * @return
+	 * The amount of runs including this one
+	 */
+	public int countExecution() {
+		return ++executions;
+	}
+
+}
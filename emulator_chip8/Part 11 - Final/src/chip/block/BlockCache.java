@@ -0,0 +1,87 @@
+package chip.block;
+
+import chip.Chip;
+import chip.opcode.IOpcode;
+
+/**
+ * Keeps the decoded blocks of a single chip indexed by their start address
+ */
+public class BlockCache {
+	
+	private final BlockDecoder decoder;
+	/**
+	 * The decoded blocks by start address
+	 */
+	private final Block[] blocks;
+	/**
+	 * Marks every address which is part of at least one decoded block
+	 */
+	private final boolean[] code;
+	
+	/**
+	 * @param memorySize
+	 * @param opcodeTable
+	 * The handlers the blocks are built from, see {@link chip.opcode.OpcodeTable#getTable(chip.Quirks)}
+	 */
+	public BlockCache(int memorySize, IOpcode[] opcodeTable) {
+		decoder = new BlockDecoder(opcodeTable);
+		blocks = new Block[memorySize];
+		code = new boolean[memorySize];
+	}
+	
+	/**
+	 * Gets the block starting at the address, decoding it if needed
+	 * @param chip
+	 * @param address
+	 * @return
+	 * The block or null if its first opcode is unsupported
+	 */
+	public Block get(Chip chip, int address) {
+		Block block = blocks[address];
+		if(block == null) {
+			block = decoder.decode(chip, address);
+			if(block != null) {
+				blocks[address] = block;
+				for(int i = block.getStart(); i < block.getEnd(); i++) {
+					code[i] = true;
+				}
+			}
+		}
+		return block;
+	}
+	
+	/**
+	 * Invalidates all blocks which contain the address<br/>
+	 * Has to be called on every write into the memory
+	 * @param address
+	 */
+	public void invalidate(int address) {
+		if(!code[address]) {
+			return;
+		}
+		
+		code[address] = false;
+		int lowest = Math.max(0, address - (BlockDecoder.MAX_BLOCK_LENGTH * 2) + 1);
+		for(int start = address; start >= lowest; start--) {
+			Block block = blocks[start];
+			if(block != null && block.contains(address)) {
+				block.invalidate();
+				blocks[start] = null;
+			}
+		}
+	}
+	
+	/**
+	 * Drops all decoded blocks
+	 */
+	public void clear() {
+		for(int i = 0; i < blocks.length; i++) {
+			if(blocks[i] != null) {
+				blocks[i].invalidate();
+				blocks[i] = null;
+			}
+			code[i] = false;
+		}
+	}
+
+}
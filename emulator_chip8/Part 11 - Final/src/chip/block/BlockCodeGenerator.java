@@ -0,0 +1,456 @@
+package chip.block;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import chip.Chip;
+import chip.Quirks;
+import chip.opcode.IOpcode;
+
+/**
+ * Emits the JVM bytecode of a {@link Block} as a class implementing {@link ICompiledBlock}<br/>
+ * The opcodes which only change V and I are emitted inline with the {@link Quirks} already applied, all others call
+ * their predecoded handler. The program counter is only written before a handler needs it and at the end of the block.
+ * Kept apart from the {@link BlockCompiler} so a missing ASM only fails the compilation
+ */
+class BlockCodeGenerator {
+	
+	private static final String CHIP = Type.getInternalName(Chip.class);
+	private static final String OPCODE = Type.getInternalName(IOpcode.class);
+	private static final String OPCODE_ARRAY = Type.getDescriptor(IOpcode[].class);
+	private static final String EXECUTE = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Chip.class));
+	/**
+	 * The name of the generated classes, they have to be in the package of the chip
+	 */
+	private static final String NAME = CHIP.substring(0, CHIP.lastIndexOf('/') + 1) + "CompiledBlock";
+	
+	/**
+	 * The local variables of the generated method
+	 */
+	private static final int THIS = 0;
+	private static final int CHIP_LOCAL = 1;
+	private static final int REGISTERS = 2;
+	private static final int RESULT = 3;
+	private static final int FLAG = 4;
+	/**
+	 * The instructions of 8XY1, 8XY2 and 8XY3 by N
+	 */
+	private static final int[] LOGIC_INSTRUCTIONS = { Opcodes.NOP, Opcodes.IOR, Opcodes.IAND, Opcodes.IXOR };
+	
+	private final Quirks quirks;
+	
+	/**
+	 * @param quirks
+	 * The profile the blocks were decoded with
+	 */
+	public BlockCodeGenerator(Quirks quirks) {
+		this.quirks = quirks;
+	}
+	
+	/**
+	 * Generates the class file of a block
+	 * @param block
+	 * @return
+	 */
+	public byte[] generate(Block block) {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+			
+			@Override
+			protected String getCommonSuperClass(String first, String second) {
+				//Frames only ever merge the same types, loading classes here isn't needed
+				return "java/lang/Object";
+			}
+			
+		};
+		writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, NAME, null,
+				"java/lang/Object", new String[] { Type.getInternalName(ICompiledBlock.class) });
+		writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "handlers", OPCODE_ARRAY, null, null).visitEnd();
+		
+		MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>",
+				Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(IOpcode[].class)), null, null);
+		constructor.visitCode();
+		constructor.visitVarInsn(Opcodes.ALOAD, THIS);
+		constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		constructor.visitVarInsn(Opcodes.ALOAD, THIS);
+		constructor.visitVarInsn(Opcodes.ALOAD, 1);
+		constructor.visitFieldInsn(Opcodes.PUTFIELD, NAME, "handlers", OPCODE_ARRAY);
+		constructor.visitInsn(Opcodes.RETURN);
+		constructor.visitMaxs(0, 0);
+		constructor.visitEnd();
+		
+		MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "execute", EXECUTE, null, null);
+		method.visitCode();
+		method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+		method.visitFieldInsn(Opcodes.GETFIELD, CHIP, "V", "[C");
+		method.visitVarInsn(Opcodes.ASTORE, REGISTERS);
+		
+		char[] opcodes = block.getOpcodes();
+		int address = block.getStart();
+		//The address the program counter of the chip currently holds
+		int pc = address;
+		for(int i = 0; i < opcodes.length; i++) {
+			int opcode = opcodes[i];
+			if(emitInline(method, opcode)) {
+				address += 2;
+				continue;
+			}
+			
+			if(pc != address) {
+				setProgramCounter(method, address);
+			}
+			if(!emitControlFlow(method, opcode, address)) {
+				method.visitVarInsn(Opcodes.ALOAD, THIS);
+				method.visitFieldInsn(Opcodes.GETFIELD, NAME, "handlers", OPCODE_ARRAY);
+				push(method, i);
+				method.visitInsn(Opcodes.AALOAD);
+				method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+				method.visitMethodInsn(Opcodes.INVOKEINTERFACE, OPCODE, "execute", EXECUTE, true);
+			}
+			address += 2;
+			pc = address;
+		}
+		//A block which ends with a control flow change has set the program counter itself
+		if(!BlockDecoder.endsBlock(opcodes[opcodes.length - 1]) && pc != address) {
+			setProgramCounter(method, address);
+		}
+		method.visitInsn(Opcodes.RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+		
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+	
+	/**
+	 * Emits an opcode which only changes V and I, so the program counter can stay behind
+	 * @param method
+	 * @param opcode
+	 * @return
+	 * False if the opcode needs the program counter
+	 */
+	private boolean emitInline(MethodVisitor method, int opcode) {
+		int x = (opcode & 0x0F00) >> 8;
+		int y = (opcode & 0x00F0) >> 4;
+		int nn = opcode & 0x00FF;
+		
+		switch(opcode & 0xF000) {
+		case 0x6000: //6XNN: VX = NN
+			method.visitVarInsn(Opcodes.ALOAD, REGISTERS);
+			push(method, x);
+			push(method, nn);
+			method.visitInsn(Opcodes.CASTORE);
+			return true;
+			
+		case 0x7000: //7XNN: VX += NN
+			method.visitVarInsn(Opcodes.ALOAD, REGISTERS);
+			push(method, x);
+			loadRegister(method, x);
+			push(method, nn);
+			method.visitInsn(Opcodes.IADD);
+			push(method, 0xFF);
+			method.visitInsn(Opcodes.IAND);
+			method.visitInsn(Opcodes.CASTORE);
+			return true;
+			
+		case 0x8000:
+			return emitArithmetic(method, opcode, x, y);
+			
+		case 0xA000: //ANNN: I = NNN
+			method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+			push(method, opcode & 0x0FFF);
+			method.visitFieldInsn(Opcodes.PUTFIELD, CHIP, "I", "C");
+			return true;
+			
+		case 0xF000:
+			switch(nn) {
+			case 0x07: //FX07: VX = delay timer
+				method.visitVarInsn(Opcodes.ALOAD, REGISTERS);
+				push(method, x);
+				method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+				method.visitFieldInsn(Opcodes.GETFIELD, CHIP, "delay_timer", "I");
+				method.visitInsn(Opcodes.CASTORE);
+				return true;
+				
+			case 0x15: //FX15: delay timer = VX
+			case 0x18: //FX18: sound timer = VX
+				method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+				loadRegister(method, x);
+				method.visitFieldInsn(Opcodes.PUTFIELD, CHIP, (nn == 0x15) ? "delay_timer" : "sound_timer", "I");
+				return true;
+				
+			case 0x1E: //FX1E: I += VX
+				method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+				method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+				method.visitFieldInsn(Opcodes.GETFIELD, CHIP, "I", "C");
+				loadRegister(method, x);
+				method.visitInsn(Opcodes.IADD);
+				method.visitInsn(Opcodes.I2C);
+				method.visitFieldInsn(Opcodes.PUTFIELD, CHIP, "I", "C");
+				return true;
+				
+			case 0x29: //FX29: I = the character VX of the fontset
+				method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+				loadRegister(method, x);
+				push(method, 5);
+				method.visitInsn(Opcodes.IMUL);
+				push(method, 0x050);
+				method.visitInsn(Opcodes.IADD);
+				method.visitInsn(Opcodes.I2C);
+				method.visitFieldInsn(Opcodes.PUTFIELD, CHIP, "I", "C");
+				return true;
+				
+			default:
+				return false;
+			}
+			
+		default:
+			return false;
+		}
+	}
+	
+	/**
+	 * Emits 8XY0 to 8XYE, the result and the flag are computed into locals without branches
+	 * @param method
+	 * @param opcode
+	 * @param x
+	 * @param y
+	 * @return
+	 * False for an opcode which isn't an arithmetic one
+	 */
+	private boolean emitArithmetic(MethodVisitor method, int opcode, int x, int y) {
+		int source = quirks.shiftsVY() ? y : x;
+		switch(opcode & 0x000F) {
+		case 0x0: //8XY0: VX = VY
+			method.visitVarInsn(Opcodes.ALOAD, REGISTERS);
+			push(method, x);
+			loadRegister(method, y);
+			method.visitInsn(Opcodes.CASTORE);
+			return true;
+			
+		case 0x1: //8XY1: VX |= VY
+		case 0x2: //8XY2: VX &= VY
+		case 0x3: //8XY3: VX ^= VY
+			method.visitVarInsn(Opcodes.ALOAD, REGISTERS);
+			push(method, x);
+			loadRegister(method, x);
+			loadRegister(method, y);
+			method.visitInsn(LOGIC_INSTRUCTIONS[opcode & 0x000F]);
+			method.visitInsn(Opcodes.CASTORE);
+			if(quirks.resetsFlag()) {
+				method.visitVarInsn(Opcodes.ALOAD, REGISTERS);
+				push(method, 0xF);
+				push(method, 0);
+				method.visitInsn(Opcodes.CASTORE);
+			}
+			return true;
+			
+		case 0x4: //8XY4: VX += VY, VF = carry
+			loadRegister(method, x);
+			loadRegister(method, y);
+			method.visitInsn(Opcodes.IADD);
+			method.visitVarInsn(Opcodes.ISTORE, RESULT);
+			method.visitVarInsn(Opcodes.ILOAD, RESULT);
+			push(method, 8);
+			method.visitInsn(Opcodes.ISHR);
+			method.visitVarInsn(Opcodes.ISTORE, FLAG);
+			break;
+			
+		case 0x5: //8XY5: VX -= VY, VF = no borrow
+			loadRegister(method, x);
+			loadRegister(method, y);
+			method.visitInsn(Opcodes.ISUB);
+			method.visitVarInsn(Opcodes.ISTORE, RESULT);
+			if(quirks.hasExactFlags()) {
+				//VX >= VY
+				method.visitVarInsn(Opcodes.ILOAD, RESULT);
+				emitNotNegative(method);
+			} else {
+				//VX > VY
+				loadRegister(method, y);
+				loadRegister(method, x);
+				method.visitInsn(Opcodes.ISUB);
+				push(method, 31);
+				method.visitInsn(Opcodes.IUSHR);
+			}
+			method.visitVarInsn(Opcodes.ISTORE, FLAG);
+			break;
+			
+		case 0x6: //8XY6: VX = source >> 1, VF = the shifted out bit
+			loadRegister(method, source);
+			method.visitVarInsn(Opcodes.ISTORE, FLAG);
+			method.visitVarInsn(Opcodes.ILOAD, FLAG);
+			push(method, 1);
+			method.visitInsn(Opcodes.ISHR);
+			method.visitVarInsn(Opcodes.ISTORE, RESULT);
+			method.visitVarInsn(Opcodes.ILOAD, FLAG);
+			push(method, 1);
+			method.visitInsn(Opcodes.IAND);
+			method.visitVarInsn(Opcodes.ISTORE, FLAG);
+			break;
+			
+		case 0x7: //8XY7: VX = VY - VX, VF = no borrow
+			loadRegister(method, y);
+			loadRegister(method, x);
+			method.visitInsn(Opcodes.ISUB);
+			method.visitVarInsn(Opcodes.ISTORE, RESULT);
+			method.visitVarInsn(Opcodes.ILOAD, RESULT);
+			emitNotNegative(method);
+			method.visitVarInsn(Opcodes.ISTORE, FLAG);
+			break;
+			
+		case 0xE: //8XYE: VX = source << 1, VF = the shifted out bit
+			loadRegister(method, source);
+			method.visitVarInsn(Opcodes.ISTORE, FLAG);
+			method.visitVarInsn(Opcodes.ILOAD, FLAG);
+			push(method, 1);
+			method.visitInsn(Opcodes.ISHL);
+			method.visitVarInsn(Opcodes.ISTORE, RESULT);
+			method.visitVarInsn(Opcodes.ILOAD, FLAG);
+			push(method, 0x80);
+			method.visitInsn(Opcodes.IAND);
+			if(quirks.hasExactFlags()) {
+				push(method, 7);
+				method.visitInsn(Opcodes.ISHR);
+			}
+			method.visitVarInsn(Opcodes.ISTORE, FLAG);
+			break;
+			
+		default:
+			return false;
+		}
+		
+		if(quirks.hasExactFlags()) {
+			storeResult(method, x);
+			storeFlag(method);
+		} else {
+			storeFlag(method);
+			storeResult(method, x);
+		}
+		return true;
+	}
+	
+	/**
+	 * Emits the opcodes which end a block and don't need a handler: 1NNN and the skips on registers
+	 * @param method
+	 * @param opcode
+	 * @param address
+	 * The address of the opcode, which the program counter already holds
+	 * @return
+	 * False if the handler has to be called
+	 */
+	private boolean emitControlFlow(MethodVisitor method, int opcode, int address) {
+		int x = (opcode & 0x0F00) >> 8;
+		int y = (opcode & 0x00F0) >> 4;
+		int skipUnless;
+		
+		switch(opcode & 0xF000) {
+		case 0x1000: //1NNN: Jumps through the chip, which also detects the idle loops
+			method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+			push(method, opcode & 0x0FFF);
+			method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CHIP, "jump", "(I)V", false);
+			return true;
+			
+		case 0x3000: //3XNN: Skips if VX == NN
+			loadRegister(method, x);
+			push(method, opcode & 0x00FF);
+			skipUnless = Opcodes.IF_ICMPNE;
+			break;
+			
+		case 0x4000: //4XNN: Skips if VX != NN
+			loadRegister(method, x);
+			push(method, opcode & 0x00FF);
+			skipUnless = Opcodes.IF_ICMPEQ;
+			break;
+			
+		case 0x5000: //5XY0: Skips if VX == VY
+			if((opcode & 0x000F) == 0x0002 || (opcode & 0x000F) == 0x0003) {
+				return false;
+			}
+			loadRegister(method, x);
+			loadRegister(method, y);
+			skipUnless = Opcodes.IF_ICMPNE;
+			break;
+			
+		case 0x9000: //9XY0: Skips if VX != VY
+			loadRegister(method, x);
+			loadRegister(method, y);
+			skipUnless = Opcodes.IF_ICMPEQ;
+			break;
+			
+		default:
+			return false;
+		}
+		
+		//The skip checks the length of the next opcode itself, it could be F000 NNNN
+		Label next = new Label();
+		Label end = new Label();
+		method.visitJumpInsn(skipUnless, next);
+		method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+		method.visitMethodInsn(Opcodes.INVOKEVIRTUAL, CHIP, "skipNextInstruction", "()V", false);
+		method.visitJumpInsn(Opcodes.GOTO, end);
+		method.visitLabel(next);
+		setProgramCounter(method, address + 2);
+		method.visitLabel(end);
+		return true;
+	}
+	
+	/**
+	 * Turns the int on the stack into 1 if it isn't negative, otherwise 0
+	 * @param method
+	 */
+	private void emitNotNegative(MethodVisitor method) {
+		push(method, 31);
+		method.visitInsn(Opcodes.IUSHR);
+		push(method, 1);
+		method.visitInsn(Opcodes.IXOR);
+	}
+	
+	private void storeResult(MethodVisitor method, int x) {
+		method.visitVarInsn(Opcodes.ALOAD, REGISTERS);
+		push(method, x);
+		method.visitVarInsn(Opcodes.ILOAD, RESULT);
+		push(method, 0xFF);
+		method.visitInsn(Opcodes.IAND);
+		method.visitInsn(Opcodes.CASTORE);
+	}
+	
+	private void storeFlag(MethodVisitor method) {
+		method.visitVarInsn(Opcodes.ALOAD, REGISTERS);
+		push(method, 0xF);
+		method.visitVarInsn(Opcodes.ILOAD, FLAG);
+		method.visitInsn(Opcodes.CASTORE);
+	}
+	
+	private void loadRegister(MethodVisitor method, int index) {
+		method.visitVarInsn(Opcodes.ALOAD, REGISTERS);
+		push(method, index);
+		method.visitInsn(Opcodes.CALOAD);
+	}
+	
+	private void setProgramCounter(MethodVisitor method, int address) {
+		method.visitVarInsn(Opcodes.ALOAD, CHIP_LOCAL);
+		push(method, address & 0xFFFF);
+		method.visitFieldInsn(Opcodes.PUTFIELD, CHIP, "pc", "C");
+	}
+	
+	/**
+	 * Pushes an int constant with the shortest instruction
+	 * @param method
+	 * @param value
+	 */
+	private void push(MethodVisitor method, int value) {
+		if(value >= -1 && value <= 5) {
+			method.visitInsn(Opcodes.ICONST_0 + value);
+		} else if(value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			method.visitIntInsn(Opcodes.BIPUSH, value);
+		} else if(value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			method.visitIntInsn(Opcodes.SIPUSH, value);
+		} else {
+			method.visitLdcInsn(value);
+		}
+	}
+
+}
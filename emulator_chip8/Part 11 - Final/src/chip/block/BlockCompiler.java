@@ -0,0 +1,115 @@
+package chip.block;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup.ClassOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import chip.Chip;
+import chip.Quirks;
+import chip.opcode.IOpcode;
+
+/**
+ * Compiles the hot {@link Block}s of {@link chip.ExecutionMode#JIT} into hidden classes<br/>
+ * The classes are generated by the {@link BlockCodeGenerator} and defined as nestmates of the {@link Chip}, so the code
+ * works directly on V, I and the program counter. The code only depends on the address and the opcodes of the block,
+ * so it is shared by all chips with the same quirks
+ */
+public class BlockCompiler {
+	
+	/**
+	 * The amount of complete runs before a block is compiled, the rest isn't worth a class
+	 */
+	public static final int COMPILE_THRESHOLD = 16;
+	/**
+	 * The maximum amount of shared blocks, self-modifying programs could create new ones forever
+	 */
+	private static final int MAX_SHARED_BLOCKS = 0x4000;
+	
+	/**
+	 * The compiled blocks by {@link #getKey(Block)}
+	 */
+	private static final Map<String, ICompiledBlock> shared = new HashMap<>();
+	
+	/**
+	 * The full privilege lookup of the chip which the classes are defined in
+	 */
+	private final MethodHandles.Lookup lookup;
+	private final Quirks quirks;
+	
+	/**
+	 * @param lookup
+	 * A lookup of {@link Chip} with private access
+	 * @param quirks
+	 * The profile the blocks were decoded with
+	 */
+	public BlockCompiler(MethodHandles.Lookup lookup, Quirks quirks) {
+		this.lookup = lookup;
+		this.quirks = quirks;
+	}
+	
+	/**
+	 * Gets the code of a block which is run completely, compiling it once it ran {@link #COMPILE_THRESHOLD} times
+	 * @param block
+	 * @return
+	 * The code or null if the block is still cold or {@link Block#isUncompilable()}
+	 */
+	public ICompiledBlock getCompiled(Block block) {
+		ICompiledBlock compiled = block.getCompiled();
+		if(compiled != null || block.isUncompilable() || block.countExecution() < COMPILE_THRESHOLD) {
+			return compiled;
+		}
+		
+		compiled = compile(block);
+		if(compiled == null) {
+			block.setUncompilable();
+		} else {
+			block.setCompiled(compiled);
+		}
+		return compiled;
+	}
+	
+	/**
+	 * Gets the shared code of the block or generates it
+	 * @param block
+	 * @return
+	 * The code or null if it couldn't be generated or loaded
+	 */
+	public ICompiledBlock compile(Block block) {
+		String key = getKey(block);
+		synchronized (shared) {
+			ICompiledBlock compiled = shared.get(key);
+			if(compiled != null) {
+				return compiled;
+			}
+		}
+		
+		ICompiledBlock compiled;
+		try {
+			byte[] bytecode = new BlockCodeGenerator(quirks).generate(block);
+			Class<?> type = lookup.defineHiddenClass(bytecode, true, ClassOption.NESTMATE).lookupClass();
+			compiled = (ICompiledBlock)type.getConstructor(IOpcode[].class).newInstance((Object)block.getHandlers());
+		} catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+			//Includes a missing ASM, the switch interpreter runs the block instead
+			return null;
+		}
+		
+		synchronized (shared) {
+			if(shared.size() >= MAX_SHARED_BLOCKS) {
+				shared.clear();
+			}
+			shared.put(key, compiled);
+		}
+		return compiled;
+	}
+	
+	/**
+	 * Identifies the code of a block: the quirks, the start and the opcodes
+	 * @param block
+	 * @return
+	 */
+	private String getKey(Block block) {
+		return quirks.ordinal() + ":" + block.getStart() + ":" + new String(block.getOpcodes());
+	}
+
+}
@@ -0,0 +1,102 @@
+package chip.block;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import chip.Chip;
+import chip.opcode.IOpcode;
+import chip.opcode.OpcodeUnsupported;
+
+/**
+ * Discovers the basic block starting at an address and collects its predecoded handlers into a {@link Block}<br/>
+ * A block also ends after an opcode which writes into the memory, so it can't overwrite the rest of itself
+ */
+public class BlockDecoder {
+	
+	/**
+	 * The maximum amount of opcodes in a single block
+	 */
+	public static final int MAX_BLOCK_LENGTH = 64;
+	
+	private final IOpcode[] opcodeTable;
+	
+	/**
+	 * @param opcodeTable
+	 * The handlers of the quirk profile the blocks are built for
+	 */
+	public BlockDecoder(IOpcode[] opcodeTable) {
+		this.opcodeTable = opcodeTable;
+	}
+	
+	/**
+	 * Decodes the block starting at the given address
+	 * @param chip
+	 * The chip whose memory contains the code
+	 * @param start
+	 * The address of the first opcode
+	 * @return
+	 * The block or null if the first opcode is unsupported
+	 */
+	public Block decode(Chip chip, int start) {
+		List<IOpcode> handlers = new ArrayList<>();
+		char[] opcodes = new char[MAX_BLOCK_LENGTH];
+		int address = start;
+		while(address + 1 < chip.getMemorySize() && handlers.size() < MAX_BLOCK_LENGTH) {
+			int opcode = (chip.readMemory(address) << 8) | chip.readMemory(address + 1);
+			IOpcode handler = opcodeTable[opcode];
+			if(handler instanceof OpcodeUnsupported) {
+				//Leave it to the interpreter to report it
+				break;
+			}
+			
+			opcodes[handlers.size()] = (char)opcode;
+			handlers.add(handler);
+			address += 2;
+			if(endsBlock(opcode) || writesMemory(opcode)) {
+				break;
+			}
+		}
+		
+		if(handlers.isEmpty()) {
+			return null;
+		}
+		return new Block(start, Arrays.copyOf(opcodes, handlers.size()), handlers.toArray(new IOpcode[handlers.size()]));
+	}
+	
+	/**
+	 * Checks if the opcode (possibly) changes the program counter in any other way than advancing to the next opcode
+	 * @param opcode
+	 * @return
+	 */
+	public static boolean endsBlock(int opcode) {
+		switch(opcode & 0xF000) {
+		case 0x0000:
+			return (opcode & 0x00FF) == 0x00EE || (opcode & 0x00FF) == 0x00FD; //00FD stops the chip
+		case 0x1000: //1NNN
+		case 0x2000: //2NNN
+		case 0x3000: //3XNN
+		case 0x4000: //4XNN
+		case 0x5000: //5XY0
+		case 0x9000: //9XY0
+		case 0xB000: //BNNN
+		case 0xE000: //EX9E, EXA1
+			return true;
+		case 0xF000:
+			//FX0A might not advance, F000 NNNN advances by 4
+			return (opcode & 0x00FF) == 0x000A || (opcode & 0x00FF) == 0x0000;
+		default:
+			return false;
+		}
+	}
+	
+	/**
+	 * Checks if the opcode writes into the memory (FX33, FX55, 5XY2), which might overwrite the block itself
+	 * @param opcode
+	 * @return
+	 */
+	public static boolean writesMemory(int opcode) {
+		return (opcode & 0xF0FF) == 0xF033 || (opcode & 0xF0FF) == 0xF055 || (opcode & 0xF00F) == 0x5002;
+	}
+
+}
@@ -0,0 +1,16 @@
+package chip.block;
+
+import chip.Chip;
+
+/**
+ * The generated code of a {@link Block}, see {@link BlockCompiler}
+ */
+public interface ICompiledBlock {
+	
+	/**
+	 * Executes all opcodes of the block, starting with the program counter at its start
+	 * @param chip
+	 */
+	public void execute(Chip chip);
+
+}
@@ -0,0 +1,76 @@
+package chip.conformance;
+
+import java.nio.ByteBuffer;
+
+import chip.Chip;
+import chip.ExecutionMode;
+
+/**
+ * Runs a {@link Chip} with one of its execution modes
+ */
+public class ChipEngine implements IEngine {
+	
+	private final ExecutionMode executionMode;
+	private final Chip chip;
+	
+	public ChipEngine(ExecutionMode executionMode) {
+		this.executionMode = executionMode;
+		chip = new Chip();
+	}
+	
+	@Override
+	public String getName() {
+		return executionMode.name();
+	}
+	
+	@Override
+	public void reset(Chip template, long seed) {
+		ByteBuffer state = ByteBuffer.allocate(template.getStateSize());
+		template.saveState(state);
+		state.flip();
+		chip.init(template.getPlatform(), template.getQuirks());
+		chip.setExecutionMode(executionMode);
+		chip.loadState(state);
+		chip.setSeed(seed);
+	}
+	
+	@Override
+	public void setKeyMask(int mask) {
+		chip.setKeyMask(mask);
+	}
+	
+	@Override
+	public void runFrame(int instructions) {
+		chip.runFrame(instructions);
+	}
+	
+	@Override
+	public boolean canStep() {
+		return true;
+	}
+	
+	@Override
+	public void beginFrame(int instructions) {
+		chip.beginFrame(instructions);
+	}
+	
+	@Override
+	public void step() {
+		chip.runUntil(chip.getInstructionCount() + 1);
+	}
+	
+	@Override
+	public void endFrame() {
+		chip.endFrame();
+	}
+	
+	@Override
+	public void capture(MachineState state) {
+		state.capture(chip);
+	}
+	
+	public Chip getChip() {
+		return chip;
+	}
+
+}
@@ -0,0 +1,243 @@
+package chip.conformance;
+
+import chip.Chip;
+import chip.InputMovie;
+import chip.trace.TraceDecoder;
+
+/**
+ * Runs the same program and input through two engines and stops at the first difference in their state<br/>
+ * The states are compared every few frames only. After a difference both engines are replayed from the start up to
+ * the last matching comparison and then compared after every frame, and after every opcode when both engines can
+ * stop in the middle of a frame. The report names the first opcode after which they differ and only lists what
+ * differs
+ */
+public class DifferentialHarness {
+	
+	/**
+	 * Where two engines stopped agreeing
+	 */
+	public static class Divergence {
+		
+		/**
+		 * The frame in which the engines diverged
+		 */
+		public final int frame;
+		/**
+		 * The opcode of the frame after which they differ (1 for the first), 0 if located per frame
+		 */
+		public final int step;
+		/**
+		 * The address and the opcode executed last, before the difference
+		 */
+		public final int address;
+		public final int opcode;
+		/**
+		 * The differences, one per line
+		 */
+		public final String diff;
+		
+		public Divergence(int frame, int step, int address, int opcode, String diff) {
+			this.frame = frame;
+			this.step = step;
+			this.address = address;
+			this.opcode = opcode;
+			this.diff = diff;
+		}
+	
+	}
+	
+	private final Chip template;
+	private final IEngine first;
+	private final IEngine second;
+	private final MachineState firstState;
+	private final MachineState secondState;
+	/**
+	 * The state before the last opcode, to report what was executed
+	 */
+	private final MachineState previousState;
+	
+	/**
+	 * @param template
+	 * A chip with the program loaded, both engines start from its state
+	 * @param first
+	 * The reference engine, usually {@link chip.ExecutionMode#SWITCH}
+	 * @param second
+	 * The engine under test
+	 */
+	public DifferentialHarness(Chip template, IEngine first, IEngine second) {
+		this.template = template;
+		this.first = first;
+		this.second = second;
+		firstState = new MachineState(template.getMemorySize());
+		secondState = new MachineState(template.getMemorySize());
+		previousState = new MachineState(template.getMemorySize());
+	}
+	
+	/**
+	 * Runs the movie through both engines
+	 * @param movie
+	 * The seed, CPU rate, length and keys of the run
+	 * @param interval
+	 * The amount of frames between two comparisons
+	 * @return
+	 * The first divergence or null if the engines agree until the end
+	 */
+	public Divergence run(InputMovie movie, int interval) {
+		reset(movie);
+		int instructions = movie.getInstructionsPerFrame();
+		int nextChange = 0;
+		int verified = 0;
+		for(int frame = 0; frame < movie.getLength(); frame++) {
+			nextChange = applyKeys(movie, frame, nextChange);
+			runFrame(first, instructions, frame);
+			runFrame(second, instructions, frame);
+			
+			if((frame + 1) % interval == 0 || frame == movie.getLength() - 1) {
+				first.capture(firstState);
+				second.capture(secondState);
+				if(!firstState.matches(secondState)) {
+					return locate(movie, verified, frame);
+				}
+				verified = frame + 1;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Replays up to the last matching frame and finds the first difference after it
+	 * @param movie
+	 * @param from
+	 * The first frame which hasn't been verified
+	 * @param to
+	 * The frame after which the states differ
+	 * @return
+	 */
+	private Divergence locate(InputMovie movie, int from, int to) {
+		reset(movie);
+		int instructions = movie.getInstructionsPerFrame();
+		int nextChange = 0;
+		for(int frame = 0; frame < from; frame++) {
+			nextChange = applyKeys(movie, frame, nextChange);
+			first.runFrame(instructions);
+			second.runFrame(instructions);
+		}
+		
+		boolean step = first.canStep() && second.canStep();
+		for(int frame = from; frame <= to; frame++) {
+			nextChange = applyKeys(movie, frame, nextChange);
+			first.capture(previousState);
+			if(step) {
+				first.beginFrame(instructions);
+				second.beginFrame(instructions);
+				for(int i = 1; i <= instructions; i++) {
+					first.step();
+					second.step();
+					Divergence divergence = compare(frame, i);
+					if(divergence != null) {
+						return divergence;
+					}
+					first.capture(previousState);
+				}
+				first.endFrame();
+				second.endFrame();
+			} else {
+				first.runFrame(instructions);
+				second.runFrame(instructions);
+			}
+			
+			//Only the timers tick at the end of a frame, so a difference there is reported per frame
+			Divergence divergence = compare(frame, 0);
+			if(divergence != null) {
+				return divergence;
+			}
+		}
+		throw new IllegalStateException("The engines differed in frames " + from + " - " + to + " but not when replayed");
+	}
+	
+	/**
+	 * Runs a frame on a single engine
+	 * @param engine
+	 * @param instructions
+	 * @param frame
+	 * @throws IllegalStateException
+	 * If the engine failed, for example on a stack overflow of the program
+	 */
+	private static void runFrame(IEngine engine, int instructions, int frame) {
+		try {
+			engine.runFrame(instructions);
+		} catch (RuntimeException e) {
+			throw new IllegalStateException(engine.getName() + " failed in frame " + frame + ": " + e, e);
+		}
+	}
+	
+	/**
+	 * Compares the engines
+	 * @param frame
+	 * @param step
+	 * @return
+	 * The divergence or null if they match
+	 */
+	private Divergence compare(int frame, int step) {
+		first.capture(firstState);
+		second.capture(secondState);
+		if(firstState.matches(secondState)) {
+			return null;
+		}
+		StringBuilder diff = new StringBuilder();
+		firstState.writeDiff(secondState, diff);
+		return new Divergence(frame, step, previousState.pc, previousState.getOpcode(), diff.toString());
+	}
+	
+	private void reset(InputMovie movie) {
+		first.reset(template, movie.getSeed());
+		second.reset(template, movie.getSeed());
+		first.setKeyMask(0);
+		second.setKeyMask(0);
+	}
+	
+	/**
+	 * Sets the keys of the movie which change before the frame
+	 * @param movie
+	 * @param frame
+	 * @param nextChange
+	 * The index of the first change which hasn't been applied
+	 * @return
+	 * The new index of the first change which hasn't been applied
+	 */
+	private int applyKeys(InputMovie movie, int frame, int nextChange) {
+		int[] frames = movie.getFrames();
+		int[] masks = movie.getMasks();
+		while(nextChange < frames.length && frames[nextChange] <= frame) {
+			first.setKeyMask(masks[nextChange]);
+			second.setKeyMask(masks[nextChange]);
+			nextChange++;
+		}
+		return nextChange;
+	}
+	
+	/**
+	 * Describes a divergence
+	 * @param divergence
+	 * @param instructionsPerFrame
+	 * @return
+	 * A few lines: where it happened, the last opcode and the differences as first != second
+	 */
+	public String describe(Divergence divergence, int instructionsPerFrame) {
+		StringBuilder text = new StringBuilder();
+		if(divergence.step == 0) {
+			text.append(String.format("%s and %s differ after frame %d", first.getName(), second.getName(), divergence.frame));
+		} else {
+			long instruction = ((long)divergence.frame * instructionsPerFrame) + divergence.step;
+			text.append(String.format("%s and %s differ after instruction %d (frame %d, opcode %d)", first.getName(),
+					second.getName(), instruction, divergence.frame, divergence.step));
+			text.append(System.lineSeparator());
+			text.append(String.format("Last opcode: %03X: %04X %s", divergence.address, divergence.opcode,
+					TraceDecoder.describe(divergence.opcode)));
+		}
+		text.append(System.lineSeparator());
+		text.append(divergence.diff);
+		return text.toString();
+	}
+
+}
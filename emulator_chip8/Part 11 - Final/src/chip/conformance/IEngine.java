@@ -0,0 +1,62 @@
+package chip.conformance;
+
+import chip.Chip;
+
+/**
+ * An engine which runs Chip 8 programs, compared against another one by the {@link DifferentialHarness}
+ */
+public interface IEngine {
+	
+	/**
+	 * Gets the name used in reports
+	 * @return
+	 */
+	public String getName();
+	
+	/**
+	 * Starts over from the state of a chip
+	 * @param template
+	 * A chip with the program loaded
+	 * @param seed
+	 * The seed of the random number generator
+	 */
+	public void reset(Chip template, long seed);
+	
+	public void setKeyMask(int mask);
+	
+	/**
+	 * Executes a single 60 Hz frame, see {@link Chip#runFrame(int)}
+	 * @param instructions
+	 */
+	public void runFrame(int instructions);
+	
+	/**
+	 * Checks if the engine can stop in the middle of a frame<br/>
+	 * If not, divergences are located per frame instead of per opcode
+	 * @return
+	 */
+	public boolean canStep();
+	
+	/**
+	 * Starts a frame which is executed opcode by opcode, only if {@link #canStep()}
+	 * @param instructions
+	 */
+	public void beginFrame(int instructions);
+	
+	/**
+	 * Executes the next opcode of the frame
+	 */
+	public void step();
+	
+	/**
+	 * Ends the frame with a timer tick
+	 */
+	public void endFrame();
+	
+	/**
+	 * Copies the state of the machine
+	 * @param state
+	 */
+	public void capture(MachineState state);
+
+}
@@ -0,0 +1,88 @@
+package chip.conformance;
+
+import java.util.Arrays;
+
+import chip.Chip;
+import chip.lockstep.LockstepEngine;
+
+/**
+ * Runs a single machine of a {@link LockstepEngine}<br/>
+ * The engine only executes whole frames, so divergences are located per frame
+ */
+public class LockstepMachine implements IEngine {
+	
+	private final LockstepEngine engine = new LockstepEngine(1);
+	private final long[] rows = new long[32];
+	
+	@Override
+	public String getName() {
+		return "LOCKSTEP";
+	}
+	
+	@Override
+	public void reset(Chip template, long seed) {
+		engine.load(template);
+		engine.setSeed(0, seed);
+	}
+	
+	@Override
+	public void setKeyMask(int mask) {
+		engine.setKeyMask(0, mask);
+	}
+	
+	@Override
+	public void runFrame(int instructions) {
+		engine.runFrame(instructions);
+	}
+	
+	@Override
+	public boolean canStep() {
+		return false;
+	}
+	
+	@Override
+	public void beginFrame(int instructions) {
+		throw new UnsupportedOperationException("The lockstep engine only runs whole frames");
+	}
+	
+	@Override
+	public void step() {
+		throw new UnsupportedOperationException("The lockstep engine only runs whole frames");
+	}
+	
+	@Override
+	public void endFrame() {
+		throw new UnsupportedOperationException("The lockstep engine only runs whole frames");
+	}
+	
+	@Override
+	public void capture(MachineState state) {
+		for(int address = 0; address < state.memory.length; address++) {
+			state.memory[address] = (byte)(address < LockstepEngine.MEMORY_SIZE ? engine.readMemory(0, address) : 0);
+		}
+		for(int i = 0; i < 16; i++) {
+			state.V[i] = engine.getRegister(0, i);
+			state.flags[i] = 0;
+		}
+		state.I = engine.getIndex(0);
+		state.pc = engine.getProgramCounter(0);
+		state.stackPointer = engine.getStackPointer(0);
+		Arrays.fill(state.stack, 0);
+		for(int i = 0; i < state.stackPointer; i++) {
+			state.stack[i] = engine.getStackEntry(0, i);
+		}
+		state.delayTimer = engine.getDelayTimer(0);
+		state.soundTimer = engine.getSoundTimer(0);
+		
+		//Only the low resolution plane exists, in the first long of every row
+		Arrays.fill(state.display, 0L);
+		engine.getDisplay(0, rows, 0);
+		for(int row = 0; row < rows.length; row++) {
+			state.display[row * 2] = rows[row];
+		}
+		state.highResolution = false;
+		state.planeMask = 1;
+		state.halted = engine.isHalted(0);
+	}
+
+}
@@ -0,0 +1,167 @@
+package chip.conformance;
+
+import java.util.Arrays;
+
+import chip.Chip;
+
+/**
+ * A copy of everything a program can observe of a machine, filled by {@link IEngine#capture(MachineState)}<br/>
+ * Counters (instructions, frames) and the random state are left out, they are not part of the machine itself
+ */
+public class MachineState {
+	
+	public final byte[] memory;
+	public final int[] V = new int[16];
+	public int I;
+	public int pc;
+	public final int[] stack = new int[16];
+	public int stackPointer;
+	public int delayTimer;
+	public int soundTimer;
+	/**
+	 * The packed display in the layout of {@link Chip#getDisplayRows()}
+	 */
+	public final long[] display = new long[Chip.PLANES * Chip.PLANE_SIZE];
+	public boolean highResolution;
+	public int planeMask;
+	public boolean halted;
+	public final int[] flags = new int[16];
+	
+	/**
+	 * @param memorySize
+	 * The amount of addressable bytes of the machines
+	 */
+	public MachineState(int memorySize) {
+		memory = new byte[memorySize];
+	}
+	
+	/**
+	 * Copies the state of a chip
+	 * @param chip
+	 */
+	public void capture(Chip chip) {
+		for(int address = 0; address < memory.length; address++) {
+			memory[address] = (byte)chip.readMemory(address);
+		}
+		for(int i = 0; i < 16; i++) {
+			V[i] = chip.getRegister(i);
+			flags[i] = chip.getFlag(i);
+		}
+		I = chip.getIndex();
+		pc = chip.getProgramCounter();
+		stackPointer = chip.getStackPointer();
+		Arrays.fill(stack, 0);
+		for(int i = 0; i < stackPointer; i++) {
+			stack[i] = chip.getStackEntry(i);
+		}
+		delayTimer = chip.getDelayTimer();
+		soundTimer = chip.getSoundTimer();
+		System.arraycopy(chip.getDisplayRows(), 0, display, 0, display.length);
+		highResolution = chip.isHighResolution();
+		planeMask = chip.getPlaneMask();
+		halted = chip.isHalted();
+	}
+	
+	/**
+	 * Gets the opcode at the program counter
+	 * @return
+	 */
+	public int getOpcode() {
+		return ((memory[pc] & 0xFF) << 8) | (memory[(pc + 1) % memory.length] & 0xFF);
+	}
+	
+	/**
+	 * Compares with the state of another machine
+	 * @param other
+	 * @return
+	 * If both are the same
+	 */
+	public boolean matches(MachineState other) {
+		return pc == other.pc && I == other.I && Arrays.equals(V, other.V) && stackPointer == other.stackPointer
+				&& Arrays.equals(stack, other.stack) && delayTimer == other.delayTimer && soundTimer == other.soundTimer
+				&& highResolution == other.highResolution && planeMask == other.planeMask && halted == other.halted
+				&& Arrays.equals(flags, other.flags) && Arrays.equals(display, other.display)
+				&& Arrays.equals(memory, other.memory);
+	}
+	
+	/**
+	 * Writes only the parts which differ from another machine, one per line as "name: this != other"<br/>
+	 * Consecutive differing bytes of the memory are combined into a single line
+	 * @param other
+	 * @param out
+	 */
+	public void writeDiff(MachineState other, StringBuilder out) {
+		diff(out, "PC", pc, other.pc, 3);
+		diff(out, "I", I, other.I, 3);
+		for(int i = 0; i < 16; i++) {
+			diff(out, "V" + Integer.toHexString(i).toUpperCase(), V[i], other.V[i], 2);
+		}
+		diff(out, "SP", stackPointer, other.stackPointer, 1);
+		for(int i = 0; i < 16; i++) {
+			diff(out, "stack[" + i + "]", stack[i], other.stack[i], 3);
+		}
+		diff(out, "delay timer", delayTimer, other.delayTimer, 2);
+		diff(out, "sound timer", soundTimer, other.soundTimer, 2);
+		diff(out, "high resolution", highResolution ? 1 : 0, other.highResolution ? 1 : 0, 1);
+		diff(out, "planes", planeMask, other.planeMask, 1);
+		diff(out, "halted", halted ? 1 : 0, other.halted ? 1 : 0, 1);
+		for(int i = 0; i < 16; i++) {
+			diff(out, "flag " + i, flags[i], other.flags[i], 2);
+		}
+		
+		for(int address = 0; address < memory.length; address++) {
+			if(memory[address] == other.memory[address]) {
+				continue;
+			}
+			int end = address;
+			while(end + 1 < memory.length && memory[end + 1] != other.memory[end + 1]) {
+				end++;
+			}
+			out.append("memory ").append(hex(address, 3));
+			if(end != address) {
+				out.append('-').append(hex(end, 3));
+			}
+			out.append(':').append(bytes(memory, address, end)).append(" !=").append(bytes(other.memory, address, end));
+			out.append(System.lineSeparator());
+			address = end;
+		}
+		
+		for(int plane = 0; plane < Chip.PLANES; plane++) {
+			StringBuilder rows = new StringBuilder();
+			for(int row = 0; row < Chip.PLANE_SIZE / 2; row++) {
+				//Two longs per row, the second one holds the right half in high resolution
+				int index = (plane * Chip.PLANE_SIZE) + (row * 2);
+				if(display[index] != other.display[index] || display[index + 1] != other.display[index + 1]) {
+					rows.append(rows.length() == 0 ? " " : ", ").append(row);
+				}
+			}
+			if(rows.length() > 0) {
+				out.append("display plane ").append(plane).append(" rows:").append(rows).append(System.lineSeparator());
+			}
+		}
+	}
+	
+	private static void diff(StringBuilder out, String name, int value, int other, int digits) {
+		if(value != other) {
+			out.append(name).append(": ").append(hex(value, digits)).append(" != ").append(hex(other, digits));
+			out.append(System.lineSeparator());
+		}
+	}
+	
+	private static String bytes(byte[] memory, int from, int to) {
+		StringBuilder bytes = new StringBuilder();
+		for(int i = from; i <= to; i++) {
+			bytes.append(' ').append(hex(memory[i] & 0xFF, 2));
+		}
+		return bytes.toString();
+	}
+	
+	private static String hex(int value, int digits) {
+		String hex = Integer.toHexString(value).toUpperCase();
+		while(hex.length() < digits) {
+			hex = "0" + hex;
+		}
+		return hex;
+	}
+
+}
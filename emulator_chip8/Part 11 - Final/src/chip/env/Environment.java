@@ -0,0 +1,187 @@
+package chip.env;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import chip.Chip;
+import chip.ExecutionMode;
+import chip.Platform;
+import chip.Quirks;
+
+/**
+ * Runs a single game for an agent: {@link #reset(long)}, then {@link #step(int, int, long[], int)} with the keys to hold
+ * until the episode is done<br/>
+ * Observations are the packed display rows of {@link Chip#getDisplayRows()}, {@link #OBSERVATION_SIZE} longs which
+ * are copied into a buffer of the caller. Stepping doesn't allocate
+ */
+public class Environment {
+	
+	/**
+	 * The amount of longs per observation
+	 */
+	public static final int OBSERVATION_SIZE = Chip.PLANES * Chip.PLANE_SIZE;
+	
+	private final Chip chip;
+	/**
+	 * The state right after the program was loaded, the bytes are shared by all clones
+	 */
+	private final ByteBuffer initialState;
+	private final int instructionsPerFrame;
+	/**
+	 * Decides the reward and the end of an episode, null for no reward and episodes which end at 00FD
+	 */
+	private final IRewardFunction rewardFunction;
+	private boolean done;
+	
+	/**
+	 * Loads the program into a new chip with the {@link Quirks#LEGACY} behaviour
+	 * @param file
+	 * The location of the program
+	 * @param platform
+	 * @param executionMode
+	 * @param instructionsPerFrame
+	 * The amount of opcodes per frame, CPU rate / 60
+	 * @param rewardFunction
+	 * The reward of the game or null
+	 * @throws IOException
+	 * If the program can't be loaded
+	 */
+	public Environment(String file, Platform platform, ExecutionMode executionMode, int instructionsPerFrame, IRewardFunction rewardFunction) throws IOException {
+		this(file, platform, Quirks.LEGACY, executionMode, instructionsPerFrame, rewardFunction);
+	}
+	
+	/**
+	 * Loads the program into a new chip
+	 * @param file
+	 * The location of the program
+	 * @param platform
+	 * @param quirks
+	 * The quirk profile the game expects
+	 * @param executionMode
+	 * @param instructionsPerFrame
+	 * The amount of opcodes per frame, CPU rate / 60
+	 * @param rewardFunction
+	 * The reward of the game or null
+	 * @throws IOException
+	 * If the program can't be loaded
+	 */
+	public Environment(String file, Platform platform, Quirks quirks, ExecutionMode executionMode, int instructionsPerFrame, IRewardFunction rewardFunction) throws IOException {
+		chip = new Chip();
+		chip.init(platform, quirks);
+		chip.setExecutionMode(executionMode);
+		chip.loadProgram(file);
+		
+		ByteBuffer state = ByteBuffer.allocate(chip.getStateSize());
+		chip.saveState(state);
+		state.flip();
+		initialState = state.asReadOnlyBuffer();
+		this.instructionsPerFrame = instructionsPerFrame;
+		this.rewardFunction = rewardFunction;
+	}
+	
+	/**
+	 * Creates a copy of another environment in its current state
+	 * @param other
+	 */
+	private Environment(Environment other) {
+		chip = new Chip();
+		chip.init(other.chip.getPlatform(), other.chip.getQuirks());
+		chip.setExecutionMode(other.chip.getExecutionMode());
+		ByteBuffer state = ByteBuffer.allocate(other.chip.getStateSize());
+		other.chip.saveState(state);
+		state.flip();
+		chip.loadState(state);
+		
+		initialState = other.initialState.duplicate();
+		instructionsPerFrame = other.instructionsPerFrame;
+		rewardFunction = other.rewardFunction;
+		done = other.done;
+	}
+	
+	/**
+	 * Starts a new episode from the freshly loaded program
+	 * @param seed
+	 * The seed of the random number generator (CXNN)
+	 */
+	public void reset(long seed) {
+		initialState.rewind();
+		chip.loadState(initialState);
+		chip.setSeed(seed);
+		done = false;
+	}
+	
+	/**
+	 * Holds the keys for the given amount of frames
+	 * @param keyMask
+	 * Bit n is set if key n is pressed
+	 * @param frames
+	 * @return
+	 * The reward of the step
+	 */
+	public double step(int keyMask, int frames) {
+		chip.setKeyMask(keyMask);
+		for(int i = 0; i < frames; i++) {
+			chip.runFrame(instructionsPerFrame);
+		}
+		
+		if(rewardFunction == null) {
+			done = chip.isHalted();
+			return 0;
+		}
+		done = rewardFunction.isDone(chip);
+		return rewardFunction.reward(chip);
+	}
+	
+	/**
+	 * Holds the keys for the given amount of frames and writes the resulting display into the observations
+	 * @param keyMask
+	 * Bit n is set if key n is pressed
+	 * @param frames
+	 * @param observations
+	 * @param offset
+	 * The index in the observations to write {@link #OBSERVATION_SIZE} longs to
+	 * @return
+	 * The reward of the step
+	 */
+	public double step(int keyMask, int frames, long[] observations, int offset) {
+		double reward = step(keyMask, frames);
+		observe(observations, offset);
+		return reward;
+	}
+	
+	/**
+	 * Writes the current display into the observations
+	 * @param observations
+	 * @param offset
+	 * The index in the observations to write {@link #OBSERVATION_SIZE} longs to
+	 */
+	public void observe(long[] observations, int offset) {
+		System.arraycopy(chip.getDisplayRows(), 0, observations, offset, OBSERVATION_SIZE);
+	}
+	
+	/**
+	 * Checks if the episode has ended in the last step
+	 * @return
+	 */
+	public boolean isDone() {
+		return done;
+	}
+	
+	/**
+	 * Gets the chip, for example to read the score in a reward function
+	 * @return
+	 */
+	public Chip getChip() {
+		return chip;
+	}
+	
+	/**
+	 * Creates an independent copy in the current state, which continues exactly like this environment given the same
+	 * steps
+	 */
+	@Override
+	public Environment clone() {
+		return new Environment(this);
+	}
+
+}
@@ -0,0 +1,29 @@
+package chip.env;
+
+import chip.Chip;
+
+/**
+ * Turns the state of a chip into the reward of an {@link Environment} step<br/>
+ * Games keep their score in different registers or memory locations, so every game needs its own
+ */
+public interface IRewardFunction {
+	
+	/**
+	 * Called after every step
+	 * @param chip
+	 * The chip right after the step
+	 * @return
+	 * The reward for the step
+	 */
+	public double reward(Chip chip);
+	
+	/**
+	 * Called after every step
+	 * @param chip
+	 * The chip right after the step
+	 * @return
+	 * If the episode has ended, for example when the game over screen is reached
+	 */
+	public boolean isDone(Chip chip);
+
+}
@@ -0,0 +1,192 @@
+package chip.env;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import chip.ExecutionMode;
+import chip.Platform;
+import chip.Quirks;
+
+/**
+ * Steps many copies of an {@link Environment} at once, spread over a fork/join pool<br/>
+ * The environments are split into fixed slices whose tasks are reused for every step, so stepping doesn't allocate.
+ * Observations, rewards and done flags are written into arrays of the caller, indexed by environment
+ */
+public class VectorEnvironment {
+	
+	/**
+	 * The amount of environments stepped by a single task
+	 */
+	private static final int SLICE_SIZE = 64;
+	
+	private final Environment[] environments;
+	private final ForkJoinPool pool;
+	private final SliceTask[] slices;
+	private final StepTask stepTask;
+	
+	/**
+	 * The arguments of the step in progress
+	 */
+	private int[] keyMasks;
+	private int frames;
+	private long[] observations;
+	private double[] rewards;
+	private boolean[] dones;
+	
+	/**
+	 * Steps a single slice of the environments
+	 */
+	private class SliceTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+		
+		public SliceTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			for(int i = from; i < to; i++) {
+				Environment environment = environments[i];
+				rewards[i] = environment.step(keyMasks[i], frames, observations, i * Environment.OBSERVATION_SIZE);
+				dones[i] = environment.isDone();
+			}
+		}
+		
+	}
+	
+	/**
+	 * Runs all slices and waits for them
+	 */
+	private class StepTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected void compute() {
+			for(SliceTask slice : slices) {
+				slice.reinitialize();
+			}
+			invokeAll(slices);
+		}
+		
+	}
+	
+	/**
+	 * Loads the program once and creates the environments as clones of it
+	 * @param file
+	 * The location of the program
+	 * @param platform
+	 * @param quirks
+	 * The quirk profile the game expects
+	 * @param executionMode
+	 * @param instructionsPerFrame
+	 * The amount of opcodes per frame, CPU rate / 60
+	 * @param rewardFunction
+	 * The reward of the game or null
+	 * @param count
+	 * The amount of environments
+	 * @param threads
+	 * The amount of threads to step with
+	 * @throws IOException
+	 * If the program can't be loaded
+	 */
+	public VectorEnvironment(String file, Platform platform, Quirks quirks, ExecutionMode executionMode, int instructionsPerFrame,
+			IRewardFunction rewardFunction, int count, int threads) throws IOException {
+		this(new Environment(file, platform, quirks, executionMode, instructionsPerFrame, rewardFunction), count, threads);
+	}
+	
+	/**
+	 * Creates the environments as clones of a template, they run with its platform and quirks
+	 * @param template
+	 * The environment to copy, in the state the copies start in
+	 * @param count
+	 * The amount of environments
+	 * @param threads
+	 * The amount of threads to step with
+	 */
+	public VectorEnvironment(Environment template, int count, int threads) {
+		environments = new Environment[count];
+		for(int i = 0; i < count; i++) {
+			environments[i] = template.clone();
+		}
+		pool = new ForkJoinPool(threads);
+		slices = new SliceTask[(count + SLICE_SIZE - 1) / SLICE_SIZE];
+		for(int i = 0; i < slices.length; i++) {
+			slices[i] = new SliceTask(i * SLICE_SIZE, Math.min(count, (i + 1) * SLICE_SIZE));
+		}
+		stepTask = new StepTask();
+	}
+	
+	/**
+	 * Starts a new episode in every environment
+	 * @param seed
+	 * Environment n is seeded with seed + n
+	 */
+	public void reset(long seed) {
+		for(int i = 0; i < environments.length; i++) {
+			environments[i].reset(seed + i);
+		}
+	}
+	
+	/**
+	 * Starts a new episode in a single environment, for example once it is done
+	 * @param index
+	 * @param seed
+	 */
+	public void reset(int index, long seed) {
+		environments[index].reset(seed);
+	}
+	
+	/**
+	 * Steps every environment with its own keys
+	 * @param keyMasks
+	 * The keys per environment
+	 * @param frames
+	 * The amount of frames to hold the keys
+	 * @param observations
+	 * Receives the observation of environment n at n * {@link Environment#OBSERVATION_SIZE}
+	 * @param rewards
+	 * Receives the reward per environment
+	 * @param dones
+	 * Receives per environment if its episode has ended
+	 */
+	public void step(int[] keyMasks, int frames, long[] observations, double[] rewards, boolean[] dones) {
+		this.keyMasks = keyMasks;
+		this.frames = frames;
+		this.observations = observations;
+		this.rewards = rewards;
+		this.dones = dones;
+		stepTask.reinitialize();
+		pool.invoke(stepTask);
+	}
+	
+	/**
+	 * Gets the amount of environments
+	 * @return
+	 */
+	public int size() {
+		return environments.length;
+	}
+	
+	/**
+	 * Gets a single environment
+	 * @param index
+	 * @return
+	 */
+	public Environment get(int index) {
+		return environments[index];
+	}
+	
+	/**
+	 * Stops the threads
+	 */
+	public void close() {
+		pool.shutdown();
+	}
+
+}
@@ -0,0 +1,612 @@
+package chip.lockstep;
+
+import java.util.Arrays;
+
+import chip.Chip;
+import chip.Quirks;
+
+/**
+ * Runs many Chip 8 machines in lockstep, stored as parallel primitive arrays instead of one {@link Chip} each<br/>
+ * Machine n owns the slice n * size ... (n + 1) * size - 1 of every array, all memory lives in a single byte[]. A
+ * machine takes about 4.4 kB, a fraction of a Chip with its compiled block cache and unpacked display<br/>
+ * The machines are run in tiles of {@link #TILE_SIZE} which fit in the CPU cache. Within a tile every opcode slot of
+ * a frame is executed for all machines before the next one, so consecutive machines at the same address share the
+ * decoding of their opcode<br/>
+ * Only the original Chip 8 instructions are supported, a machine which runs into any other opcode or over- or
+ * underflows its stack is halted instead of stopping the whole engine. Otherwise every machine behaves exactly like a {@link Chip} with the same state,
+ * seed and keys
+ */
+public class LockstepEngine {
+	
+	public static final int MEMORY_SIZE = 0x1000;
+	private static final int REGISTERS = 16;
+	private static final int STACK_SIZE = 16;
+	private static final int DISPLAY_ROWS = 32;
+	/**
+	 * The amount of machines which run a frame together, about 280 kB of state
+	 */
+	public static final int TILE_SIZE = 64;
+	
+	private static final byte RUNNING = 0;
+	/**
+	 * The machine entered an idle loop, it sits out the rest of the frame
+	 */
+	private static final byte IDLE = 1;
+	/**
+	 * FX0A found no key, see {@link Chip#runFrame(int)}
+	 */
+	private static final byte WAITING = 2;
+	/**
+	 * The machine ran into an unsupported opcode or broke its stack, it won't execute anything anymore
+	 */
+	private static final byte HALTED = 3;
+	
+	private final int count;
+	
+	private final byte[] memory;
+	private final byte[] V;
+	private final char[] I;
+	private final char[] pc;
+	private final char[] stack;
+	private final byte[] stackPointer;
+	private final byte[] delayTimer;
+	private final byte[] soundTimer;
+	/**
+	 * The keys per machine, bit n is set while key n is pressed
+	 */
+	private final char[] keys;
+	/**
+	 * Every row packed into a long, the leftmost pixel is the most significant bit
+	 */
+	private final long[] display;
+	private final int[] randomState;
+	/**
+	 * {@link #RUNNING}, {@link #IDLE}, {@link #WAITING} or {@link #HALTED} per machine
+	 */
+	private final byte[] status;
+	
+	/**
+	 * The opcode slot of the current frame and the amount of slots in it
+	 */
+	private int slot;
+	private int slots;
+	
+	/**
+	 * Allocates the machines, all memory is zero until {@link #load(Chip)}
+	 * @param count
+	 * The amount of machines
+	 */
+	public LockstepEngine(int count) {
+		this.count = count;
+		memory = new byte[count * MEMORY_SIZE];
+		V = new byte[count * REGISTERS];
+		I = new char[count];
+		pc = new char[count];
+		stack = new char[count * STACK_SIZE];
+		stackPointer = new byte[count];
+		delayTimer = new byte[count];
+		soundTimer = new byte[count];
+		keys = new char[count];
+		display = new long[count * DISPLAY_ROWS];
+		randomState = new int[count];
+		status = new byte[count];
+	}
+	
+	/**
+	 * Copies the state of a chip into every machine<br/>
+	 * The random number generators all start from seed 0, use {@link #setSeed(int, long)} to give them their own
+	 * @param template
+	 * An initialized chip with 4kB of memory, usually with a freshly loaded program
+	 * @throws IllegalArgumentException
+	 * If the chip uses other quirks than {@link Quirks#LEGACY}, the only ones the engine implements
+	 */
+	public void load(Chip template) {
+		if(template.getQuirks() != Quirks.LEGACY) {
+			throw new IllegalArgumentException("The lockstep engine only runs the legacy quirks, not " + template.getQuirks());
+		}
+		long[] rows = template.getDisplayRows();
+		for(int machine = 0; machine < count; machine++) {
+			int base = machine * MEMORY_SIZE;
+			for(int address = 0; address < MEMORY_SIZE; address++) {
+				memory[base + address] = (byte)template.readMemory(address);
+			}
+			for(int i = 0; i < REGISTERS; i++) {
+				V[(machine * REGISTERS) + i] = (byte)template.getRegister(i);
+			}
+			I[machine] = (char)template.getIndex();
+			pc[machine] = (char)template.getProgramCounter();
+			stackPointer[machine] = 0;
+			delayTimer[machine] = (byte)template.getDelayTimer();
+			soundTimer[machine] = (byte)template.getSoundTimer();
+			keys[machine] = (char)template.getKeyMask();
+			for(int row = 0; row < DISPLAY_ROWS; row++) {
+				display[(machine * DISPLAY_ROWS) + row] = rows[row * 2];
+			}
+			randomState[machine] = Chip.toRandomState(0);
+			status[machine] = RUNNING;
+		}
+	}
+	
+	/**
+	 * Executes a single 60 Hz frame on every machine: the given amount of opcodes followed by a single timer tick
+	 * @param instructions
+	 * The amount of opcodes per frame, CPU rate / 60
+	 */
+	public void runFrame(int instructions) {
+		for(int machine = 0; machine < count; machine++) {
+			if(status[machine] == IDLE || (status[machine] == WAITING && keys[machine] != 0)) {
+				status[machine] = RUNNING;
+			}
+		}
+		slots = instructions;
+		for(int start = 0; start < count; start += TILE_SIZE) {
+			int end = Math.min(start + TILE_SIZE, count);
+			for(slot = 0; slot < instructions; slot++) {
+				step(start, end);
+			}
+		}
+		tickTimers();
+	}
+	
+	/**
+	 * Counts down the timers of all machines
+	 */
+	private void tickTimers() {
+		//Plain counted loops without branches over primitive arrays, vectorized by the JIT compiler
+		byte[] delay = delayTimer;
+		for(int machine = 0; machine < delay.length; machine++) {
+			int value = delay[machine] & 0xFF;
+			delay[machine] = (byte)(value - ((value + 0xFF) >> 8));
+		}
+		byte[] sound = soundTimer;
+		for(int machine = 0; machine < sound.length; machine++) {
+			int value = sound[machine] & 0xFF;
+			sound[machine] = (byte)(value - ((value + 0xFF) >> 8));
+		}
+	}
+	
+	/**
+	 * Executes the next opcode of every machine in the tile which isn't waiting, idle or halted
+	 * @param start
+	 * The first machine of the tile
+	 * @param end
+	 * The machine after the last one of the tile
+	 */
+	private void step(int start, int end) {
+		int decoded = -1;
+		int x = 0;
+		int y = 0;
+		int n = 0;
+		int nn = 0;
+		int nnn = 0;
+		
+		for(int machine = start; machine < end; machine++) {
+			if(status[machine] != RUNNING) {
+				continue;
+			}
+			
+			int base = machine * MEMORY_SIZE;
+			int address = pc[machine];
+			int opcode = ((memory[base + (address & 0xFFF)] & 0xFF) << 8) | (memory[base + ((address + 1) & 0xFFF)] & 0xFF);
+			if(opcode != decoded) {
+				//The previous machine was most likely at the same spot
+				decoded = opcode;
+				x = (opcode & 0x0F00) >> 8;
+				y = (opcode & 0x00F0) >> 4;
+				n = opcode & 0x000F;
+				nn = opcode & 0x00FF;
+				nnn = opcode & 0x0FFF;
+			}
+			pc[machine] = (char)execute(machine, address, opcode, x, y, n, nn, nnn);
+		}
+	}
+	
+	/**
+	 * Executes a single decoded opcode on a machine, exactly like the switch interpreter of {@link Chip}
+	 * @param machine
+	 * @param address
+	 * The address of the opcode
+	 * @param opcode
+	 * @param x
+	 * @param y
+	 * @param n
+	 * @param nn
+	 * @param nnn
+	 * @return
+	 * The address of the next opcode
+	 */
+	private int execute(int machine, int address, int opcode, int x, int y, int n, int nn, int nnn) {
+		int registers = machine * REGISTERS;
+		int vx = V[registers + x] & 0xFF;
+		int vy = V[registers + y] & 0xFF;
+		
+		switch(opcode & 0xF000) {
+		
+		case 0x0000:
+			if(opcode == 0x00E0) { //00E0: Clear Screen
+				Arrays.fill(display, machine * DISPLAY_ROWS, (machine + 1) * DISPLAY_ROWS, 0L);
+				return address + 2;
+			} else if(opcode == 0x00EE) { //00EE: Returns from subroutine
+				int sp = stackPointer[machine] - 1;
+				if(sp < 0) {
+					//Stack underflow, it must not read the stack of the previous machine
+					return halt(machine, address);
+				}
+				stackPointer[machine] = (byte)sp;
+				return stack[(machine * STACK_SIZE) + sp] + 2;
+			}
+			return halt(machine, address);
+		
+		case 0x1000: //1NNN: Jumps to address NNN
+			return jump(machine, address, nnn);
+		
+		case 0x2000: { //2NNN: Calls subroutine at NNN
+			int sp = stackPointer[machine];
+			if(sp >= STACK_SIZE) {
+				//Stack overflow, it must not write into the stack of the next machine
+				return halt(machine, address);
+			}
+			stack[(machine * STACK_SIZE) + sp] = (char)address;
+			stackPointer[machine] = (byte)(sp + 1);
+			return nnn;
+		}
+		
+		case 0x3000: //3XNN: Skips the next instruction if VX equals NN
+			return skipIf(machine, address, vx == nn);
+		
+		case 0x4000: //4XNN: Skip the next instruction if VX != NN
+			return skipIf(machine, address, vx != nn);
+		
+		case 0x5000: //5XY0 Skips the next instruction if VX equals VY
+			if(n != 0x0) {
+				return halt(machine, address);
+			}
+			return skipIf(machine, address, vx == vy);
+		
+		case 0x6000: //6XNN: Set VX to NN
+			V[registers + x] = (byte)nn;
+			return address + 2;
+		
+		case 0x7000: //7XNN: Adds NN to VX
+			V[registers + x] = (byte)(vx + nn);
+			return address + 2;
+		
+		case 0x8000:
+			switch(n) {
+			case 0x0: //8XY0: Sets VX to the value of VY
+				V[registers + x] = (byte)vy;
+				break;
+			case 0x1: //8XY1 Sets VX to VX or VY
+				V[registers + x] = (byte)(vx | vy);
+				break;
+			case 0x2: //8XY2: Sets VX to VX AND VY
+				V[registers + x] = (byte)(vx & vy);
+				break;
+			case 0x3: //8XY3 Sets VX to VX xor VY
+				V[registers + x] = (byte)(vx ^ vy);
+				break;
+			case 0x4: //8XY4 Adds VY to VX. VF is set to 1 when carry applies else to 0
+				V[registers + 0xF] = (byte)((vy > 0xFF - vx) ? 1 : 0);
+				V[registers + x] = (byte)(vx + vy);
+				break;
+			case 0x5: //8XY5 VY is subtracted from VX. VF is set to 0 when there is a borrow else 1
+				V[registers + 0xF] = (byte)((vx > vy) ? 1 : 0);
+				V[registers + x] = (byte)(vx - vy);
+				break;
+			case 0x6: //8XY6: Shift VX right by one, VF is set to the least significant bit of VX
+				V[registers + 0xF] = (byte)(vx & 0x1);
+				V[registers + x] = (byte)(vx >> 1);
+				break;
+			case 0x7: //8XY7 Sets VX to VY minus VX. VF is set to 0 when there's a borrow, and 1 when there isn't
+				V[registers + 0xF] = (byte)((vx > vy) ? 0 : 1);
+				V[registers + x] = (byte)(vy - vx);
+				break;
+			case 0xE: //8XYE Shifts VX left by one. VF is set to the most significant bit of VX before the shift
+				V[registers + 0xF] = (byte)(vx & 0x80);
+				V[registers + x] = (byte)(vx << 1);
+				break;
+			default:
+				return halt(machine, address);
+			}
+			return address + 2;
+		
+		case 0x9000: //9XY0 Skips the next instruction if VX doesn't equal VY
+			return skipIf(machine, address, vx != vy);
+		
+		case 0xA000: //ANNN: Set I to NNN
+			I[machine] = (char)nnn;
+			return address + 2;
+		
+		case 0xB000: //BNNN Jumps to the address NNN plus V0
+			return nnn + (V[registers] & 0xFF);
+		
+		case 0xC000: //CXNN: Set VX to a random number and NN
+			V[registers + x] = (byte)(nextRandom(machine) & nn);
+			return address + 2;
+		
+		case 0xD000: //DXYN: Draw a sprite (X, Y) size (8, N). Sprite is located at I
+			if(n == 0) {
+				return halt(machine, address);
+			}
+			V[registers + 0xF] = (byte)drawSprite(machine, vx, vy, n);
+			return address + 2;
+		
+		case 0xE000:
+			if(nn == 0x9E) { //EX9E Skip the next instruction if the Key VX is pressed
+				return skipIf(machine, address, ((keys[machine] >>> (vx & 0xF)) & 1) != 0);
+			} else if(nn == 0xA1) { //EXA1 Skip the next instruction if the Key VX is NOT pressed
+				return skipIf(machine, address, ((keys[machine] >>> (vx & 0xF)) & 1) == 0);
+			}
+			return halt(machine, address);
+		
+		default:
+			return executeMisc(machine, address, registers, x, vx, nn);
+		}
+	}
+	
+	/**
+	 * Executes the FX opcodes
+	 * @param machine
+	 * @param address
+	 * @param registers
+	 * The offset of V0 of the machine
+	 * @param x
+	 * @param vx
+	 * @param nn
+	 * @return
+	 * The address of the next opcode
+	 */
+	private int executeMisc(int machine, int address, int registers, int x, int vx, int nn) {
+		int base = machine * MEMORY_SIZE;
+		int index = I[machine];
+		
+		switch(nn) {
+		case 0x07: //FX07: Set VX to the value of delay_timer
+			V[registers + x] = delayTimer[machine];
+			break;
+		
+		case 0x0A: //FX0A A key press is awaited, and then stored in VX
+			if(keys[machine] == 0) {
+				//Skip the rest of the frame, the pc stays on the FX0A
+				status[machine] = WAITING;
+				return address;
+			}
+			V[registers + x] = (byte)Integer.numberOfTrailingZeros(keys[machine]);
+			break;
+		
+		case 0x15: //FX15: Set delay timer to V[x]
+			delayTimer[machine] = (byte)vx;
+			break;
+		
+		case 0x18: //FX18: Set the sound timer to V[x]
+			soundTimer[machine] = (byte)vx;
+			break;
+		
+		case 0x1E: //FX1E: Adds VX to I
+			I[machine] = (char)(index + vx);
+			break;
+		
+		case 0x29: //FX29: Sets I to the location of the sprite for the character VX (Fontset)
+			I[machine] = (char)(0x050 + (vx * 5));
+			break;
+		
+		case 0x33: //FX33 Store a binary-coded decimal value VX in I, I + 1 and I + 2
+			memory[base + (index & 0xFFF)] = (byte)(vx / 100);
+			memory[base + ((index + 1) & 0xFFF)] = (byte)((vx / 10) % 10);
+			memory[base + ((index + 2) & 0xFFF)] = (byte)(vx % 10);
+			break;
+		
+		case 0x55: //FX55 Stores V0 to VX in memory starting at address I
+			for(int i = 0; i <= x; i++) {
+				memory[base + ((index + i) & 0xFFF)] = V[registers + i];
+			}
+			break;
+		
+		case 0x65: //FX65 Fills V0 to VX with values from I
+			for(int i = 0; i <= x; i++) {
+				V[registers + i] = memory[base + ((index + i) & 0xFFF)];
+			}
+			I[machine] = (char)(index + x + 1);
+			break;
+		
+		default:
+			return halt(machine, address);
+		}
+		return address + 2;
+	}
+	
+	/**
+	 * Stops a machine on an unsupported opcode or a stack over- or underflow
+	 * @param machine
+	 * @param address
+	 * @return
+	 * The address of the opcode, the machine stays on it
+	 */
+	private int halt(int machine, int address) {
+		status[machine] = HALTED;
+		return address;
+	}
+	
+	/**
+	 * Jumps to the given address and detects the idle loops of {@link Chip#jump(int)}<br/>
+	 * The rest of the frame would only repeat the loop, so the machine is moved to the pc it would end the frame on
+	 * and sits out the remaining slots
+	 * @param machine
+	 * @param from
+	 * The address of the jump
+	 * @param address
+	 * The target of the jump
+	 * @return
+	 * The address of the next opcode
+	 */
+	private int jump(int machine, int from, int address) {
+		if(address == from) {
+			status[machine] = IDLE;
+		} else if(address == from - 4 && slot >= 2 && isDelayPollingLoop(machine, address)) {
+			//Only if the whole iteration ran in this frame, otherwise it polled the delay timer of the previous one
+			status[machine] = IDLE;
+			return address + (((slots - slot - 1) % 3) * 2);
+		}
+		return address;
+	}
+	
+	/**
+	 * Checks for FX07 followed by 3XNN or 4XNN on the same register
+	 * @param machine
+	 * @param address
+	 * @return
+	 */
+	private boolean isDelayPollingLoop(int machine, int address) {
+		int base = machine * MEMORY_SIZE;
+		int first = ((memory[base + (address & 0xFFF)] & 0xFF) << 8) | (memory[base + ((address + 1) & 0xFFF)] & 0xFF);
+		int second = ((memory[base + ((address + 2) & 0xFFF)] & 0xFF) << 8) | (memory[base + ((address + 3) & 0xFFF)] & 0xFF);
+		if((first & 0xF0FF) != 0xF007) {
+			return false;
+		}
+		int condition = second & 0xF000;
+		return (condition == 0x3000 || condition == 0x4000) && (second & 0x0F00) == (first & 0x0F00);
+	}
+	
+	/**
+	 * Advances to the next opcode or skips it, exactly like {@link Chip#skipNextInstruction()}
+	 * @param machine
+	 * @param address
+	 * @param condition
+	 * If the next opcode should be skipped
+	 * @return
+	 * The address of the next opcode
+	 */
+	private int skipIf(int machine, int address, boolean condition) {
+		if(!condition) {
+			return address + 2;
+		}
+		int base = machine * MEMORY_SIZE;
+		int next = address + 2;
+		if((memory[base + (next & 0xFFF)] & 0xFF) == 0xF0 && memory[base + ((next + 1) & 0xFFF)] == 0x00) {
+			return address + 6;
+		}
+		return address + 4;
+	}
+	
+	
+	/**
+	 * XORs a sprite located at I onto the display of a machine
+	 * @param machine
+	 * @param x
+	 * @param y
+	 * @param height
+	 * @return
+	 * 1 if a set pixel has been erased, otherwise 0
+	 */
+	private int drawSprite(int machine, int x, int y, int height) {
+		int base = machine * MEMORY_SIZE;
+		int rows = machine * DISPLAY_ROWS;
+		int index = I[machine];
+		long collision = 0;
+		for(int line = 0; line < height; line++) {
+			long mask = Long.rotateRight((long)(memory[base + ((index + line) & 0xFFF)] & 0xFF) << 56, x);
+			int row = rows + ((y + line) % DISPLAY_ROWS);
+			collision |= display[row] & mask;
+			display[row] ^= mask;
+		}
+		return (collision != 0) ? 1 : 0;
+	}
+	
+	/**
+	 * Generates the next random byte of a machine (xorshift32), like {@link Chip#nextRandom()}
+	 * @param machine
+	 * @return
+	 */
+	private int nextRandom(int machine) {
+		int x = randomState[machine];
+		x ^= x << 13;
+		x ^= x >>> 17;
+		x ^= x << 5;
+		randomState[machine] = x;
+		return x >>> 24;
+	}
+	
+	/**
+	 * Reseeds the random number generator of a machine, see {@link Chip#setSeed(long)}
+	 * @param machine
+	 * @param seed
+	 */
+	public void setSeed(int machine, long seed) {
+		randomState[machine] = Chip.toRandomState(seed);
+	}
+	
+	/**
+	 * Sets the keys of a machine
+	 * @param machine
+	 * @param mask
+	 * Bit n is set if key n is pressed
+	 */
+	public void setKeyMask(int machine, int mask) {
+		keys[machine] = (char)(mask & 0xFFFF);
+	}
+	
+	/**
+	 * Copies the display of a machine
+	 * @param machine
+	 * @param rows
+	 * Receives 32 rows, one long per row with the leftmost pixel as most significant bit
+	 * @param offset
+	 */
+	public void getDisplay(int machine, long[] rows, int offset) {
+		System.arraycopy(display, machine * DISPLAY_ROWS, rows, offset, DISPLAY_ROWS);
+	}
+	
+	public int getRegister(int machine, int index) {
+		return V[(machine * REGISTERS) + index] & 0xFF;
+	}
+	
+	public int getIndex(int machine) {
+		return I[machine];
+	}
+	
+	public int getProgramCounter(int machine) {
+		return pc[machine];
+	}
+	
+	public int readMemory(int machine, int address) {
+		return memory[(machine * MEMORY_SIZE) + address] & 0xFF;
+	}
+	
+	public int getStackPointer(int machine) {
+		return stackPointer[machine];
+	}
+	
+	public int getStackEntry(int machine, int index) {
+		return stack[(machine * STACK_SIZE) + index];
+	}
+	
+	public int getDelayTimer(int machine) {
+		return delayTimer[machine] & 0xFF;
+	}
+	
+	public int getSoundTimer(int machine) {
+		return soundTimer[machine] & 0xFF;
+	}
+	
+	public boolean isWaitingForKey(int machine) {
+		return status[machine] == WAITING;
+	}
+	
+	/**
+	 * Checks if the machine has stopped on an unsupported opcode
+	 * @param machine
+	 * @return
+	 */
+	public boolean isHalted(int machine) {
+		return status[machine] == HALTED;
+	}
+	
+	/**
+	 * Gets the amount of machines
+	 * @return
+	 */
+	public int size() {
+		return count;
+	}
+
+}
@@ -0,0 +1,9 @@
+package chip.opcode;
+
+import chip.Chip;
+
+public interface IOpcode {
+	
+	public void execute(Chip chip);
+
+}
@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 00CN: Scrolls the display N rows down (SUPER-CHIP)
+ */
+public class Opcode00CNScrollDown implements IOpcode {
+	
+	private final int n;
+	
+	public Opcode00CNScrollDown(int opcode) {
+		n = opcode & 0x000F;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.scrollDown(n);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
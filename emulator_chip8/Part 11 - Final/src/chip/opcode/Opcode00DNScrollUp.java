@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 00DN: Scrolls the display N rows up (XO-CHIP)
+ */
+public class Opcode00DNScrollUp implements IOpcode {
+	
+	private final int n;
+	
+	public Opcode00DNScrollUp(int opcode) {
+		n = opcode & 0x000F;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.scrollUp(n);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
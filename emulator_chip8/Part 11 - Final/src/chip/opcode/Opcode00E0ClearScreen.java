@@ -0,0 +1,16 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 00E0: Clear Screen
+ */
+public class Opcode00E0ClearScreen implements IOpcode {
+
+	@Override
+	public void execute(Chip chip) {
+		chip.clearDisplay();
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,15 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 00EE: Returns from subroutine
+ */
+public class Opcode00EEReturn implements IOpcode {
+
+	@Override
+	public void execute(Chip chip) {
+		chip.returnFromSubroutine();
+	}
+
+}
@@ -0,0 +1,16 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 00FB: Scrolls the display 4 pixels right (SUPER-CHIP)
+ */
+public class Opcode00FBScrollRight implements IOpcode {
+
+	@Override
+	public void execute(Chip chip) {
+		chip.scrollRight();
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
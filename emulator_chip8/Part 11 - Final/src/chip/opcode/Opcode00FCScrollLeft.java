@@ -0,0 +1,16 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 00FC: Scrolls the display 4 pixels left (SUPER-CHIP)
+ */
+public class Opcode00FCScrollLeft implements IOpcode {
+
+	@Override
+	public void execute(Chip chip) {
+		chip.scrollLeft();
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,15 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 00FD: Exits the interpreter (SUPER-CHIP)
+ */
+public class Opcode00FDExit implements IOpcode {
+
+	@Override
+	public void execute(Chip chip) {
+		chip.exit();
+	}
+
+}
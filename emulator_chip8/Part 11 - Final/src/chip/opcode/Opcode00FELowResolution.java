@@ -0,0 +1,16 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 00FE: Switches to the 64x32 low resolution (SUPER-CHIP)
+ */
+public class Opcode00FELowResolution implements IOpcode {
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setHighResolution(false);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,16 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 00FF: Switches to the 128x64 high resolution (SUPER-CHIP)
+ */
+public class Opcode00FFHighResolution implements IOpcode {
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setHighResolution(true);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
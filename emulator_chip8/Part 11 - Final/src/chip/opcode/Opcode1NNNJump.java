@@ -0,0 +1,21 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 1NNN: Jumps to address NNN
+ */
+public class Opcode1NNNJump implements IOpcode {
+	
+	private final int nnn;
+	
+	public Opcode1NNNJump(int opcode) {
+		nnn = opcode & 0x0FFF;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.jump(nnn);
+	}
+
+}
@@ -0,0 +1,21 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 2NNN: Calls subroutine at NNN
+ */
+public class Opcode2NNNCall implements IOpcode {
+	
+	private final int nnn;
+	
+	public Opcode2NNNCall(int opcode) {
+		nnn = opcode & 0x0FFF;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.callSubroutine(nnn);
+	}
+
+}
@@ -0,0 +1,27 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 3XNN: Skips the next instruction if VX equals NN
+ */
+public class Opcode3XNNSkipEqual implements IOpcode {
+	
+	private final int x;
+	private final int nn;
+	
+	public Opcode3XNNSkipEqual(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		nn = opcode & 0x00FF;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		if(chip.getRegister(x) == nn) {
+			chip.skipNextInstruction();
+		} else {
+			chip.setProgramCounter(chip.getProgramCounter() + 2);
+		}
+	}
+
+}
@@ -0,0 +1,27 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 5XY0: Skips the next instruction if VX equals VY
+ */
+public class Opcode5XY0SkipRegisterEqual implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	
+	public Opcode5XY0SkipRegisterEqual(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		if(chip.getRegister(x) == chip.getRegister(y)) {
+			chip.skipNextInstruction();
+		} else {
+			chip.setProgramCounter(chip.getProgramCounter() + 2);
+		}
+	}
+
+}
@@ -0,0 +1,24 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 5XY2: Stores VX to VY in memory starting at address I (XO-CHIP)
+ */
+public class Opcode5XY2StoreRange implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	
+	public Opcode5XY2StoreRange(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.storeRegisterRange(x, y);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,24 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 5XY3: Fills VX to VY with values from I (XO-CHIP)
+ */
+public class Opcode5XY3LoadRange implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	
+	public Opcode5XY3LoadRange(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.loadRegisterRange(x, y);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,24 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 6XNN: Sets VX to NN
+ */
+public class Opcode6XNNLoad implements IOpcode {
+	
+	private final int x;
+	private final int nn;
+	
+	public Opcode6XNNLoad(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		nn = opcode & 0x00FF;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setRegister(x, nn);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,24 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 7XNN: Adds NN to VX (Carry flag is not changed)
+ */
+public class Opcode7XNNAdd implements IOpcode {
+	
+	private final int x;
+	private final int nn;
+	
+	public Opcode7XNNAdd(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		nn = opcode & 0x00FF;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setRegister(x, chip.getRegister(x) + nn);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
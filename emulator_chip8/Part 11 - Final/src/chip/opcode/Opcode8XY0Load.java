@@ -0,0 +1,24 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 8XY0: Sets VX to the value of VY
+ */
+public class Opcode8XY0Load implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	
+	public Opcode8XY0Load(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setRegister(x, chip.getRegister(y));
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
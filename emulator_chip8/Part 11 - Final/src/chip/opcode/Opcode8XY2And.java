@@ -0,0 +1,24 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 8XY2: Sets VX to VX and VY
+ */
+public class Opcode8XY2And implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	
+	public Opcode8XY2And(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setRegister(x, chip.getRegister(x) & chip.getRegister(y));
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
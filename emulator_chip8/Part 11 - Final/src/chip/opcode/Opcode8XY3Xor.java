@@ -0,0 +1,24 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 8XY3: Sets VX to VX xor VY
+ */
+public class Opcode8XY3Xor implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	
+	public Opcode8XY3Xor(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setRegister(x, chip.getRegister(x) ^ chip.getRegister(y));
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,28 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 8XY4: Adds VY to VX. VF is set to 1 when carry applies else to 0<br/>
+ * VF is written after VX, so with X = F it holds the carry like on the real machines
+ */
+public class Opcode8XY4AddFlagLast implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	
+	public Opcode8XY4AddFlagLast(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int vx = chip.getRegister(x);
+		int vy = chip.getRegister(y);
+		chip.setRegister(x, vx + vy);
+		chip.setRegister(0xF, (vy > 0xFF - vx) ? 1 : 0);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
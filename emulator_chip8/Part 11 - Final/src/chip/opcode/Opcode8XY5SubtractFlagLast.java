@@ -0,0 +1,34 @@
+package chip.opcode;
+
+import chip.Chip;
+import chip.Quirks;
+
+/**
+ * 8XY5: VY is subtracted from VX. VF is set to 0 when there is a borrow else 1<br/>
+ * VF is written after VX, so with X = F it holds the flag like on the real machines
+ */
+public class Opcode8XY5SubtractFlagLast implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	/**
+	 * Added to VX before it is compared: 1 turns VX > VY into VX >= VY
+	 */
+	private final int equalBias;
+	
+	public Opcode8XY5SubtractFlagLast(int opcode, Quirks quirks) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+		equalBias = quirks.hasExactFlags() ? 1 : 0;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int vx = chip.getRegister(x);
+		int vy = chip.getRegister(y);
+		chip.setRegister(x, vx - vy);
+		chip.setRegister(0xF, (vx + equalBias > vy) ? 1 : 0);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
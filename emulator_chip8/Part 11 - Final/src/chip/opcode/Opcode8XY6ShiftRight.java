@@ -0,0 +1,36 @@
+package chip.opcode;
+
+import chip.Chip;
+import chip.Quirks;
+
+/**
+ * 8XY6: Shift VX right by one, VF is set to the least significant bit of VX<br/>
+ * With {@link Quirks#shiftsVY()} VY is shifted into VX instead. VF is written first like {@link Quirks#LEGACY}, see
+ * {@link Opcode8XY6ShiftRightFlagLast}
+ */
+public class Opcode8XY6ShiftRight implements IOpcode {
+	
+	private final int x;
+	/**
+	 * The register which is shifted, X or Y
+	 */
+	private final int source;
+	
+	public Opcode8XY6ShiftRight(int opcode) {
+		this(opcode, Quirks.LEGACY);
+	}
+	
+	public Opcode8XY6ShiftRight(int opcode, Quirks quirks) {
+		x = (opcode & 0x0F00) >> 8;
+		source = quirks.shiftsVY() ? (opcode & 0x00F0) >> 4 : x;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int value = chip.getRegister(source);
+		chip.setRegister(0xF, value & 0x1);
+		chip.setRegister(x, value >> 1);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,31 @@
+package chip.opcode;
+
+import chip.Chip;
+import chip.Quirks;
+
+/**
+ * 8XY6: Shift VX (with {@link Quirks#shiftsVY()} VY) right by one into VX, VF is set to the shifted out bit<br/>
+ * VF is written after VX, so with X = F it holds the flag like on the real machines
+ */
+public class Opcode8XY6ShiftRightFlagLast implements IOpcode {
+	
+	private final int x;
+	/**
+	 * The register which is shifted, X or Y
+	 */
+	private final int source;
+	
+	public Opcode8XY6ShiftRightFlagLast(int opcode, Quirks quirks) {
+		x = (opcode & 0x0F00) >> 8;
+		source = quirks.shiftsVY() ? (opcode & 0x00F0) >> 4 : x;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int value = chip.getRegister(source);
+		chip.setRegister(x, value >> 1);
+		chip.setRegister(0xF, value & 0x1);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
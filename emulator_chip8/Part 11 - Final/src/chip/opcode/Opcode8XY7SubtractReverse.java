@@ -0,0 +1,28 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 8XY7: Sets VX to VY minus VX. VF is set to 0 when there's a borrow, and 1 when there isn't<br/>
+ * VF is written first like {@link chip.Quirks#LEGACY}, see {@link Opcode8XY7SubtractReverseFlagLast}
+ */
+public class Opcode8XY7SubtractReverse implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	
+	public Opcode8XY7SubtractReverse(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int vx = chip.getRegister(x);
+		int vy = chip.getRegister(y);
+		chip.setRegister(0xF, (vx > vy) ? 0 : 1);
+		chip.setRegister(x, vy - vx);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
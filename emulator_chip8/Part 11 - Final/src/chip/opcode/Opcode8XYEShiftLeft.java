@@ -0,0 +1,41 @@
+package chip.opcode;
+
+import chip.Chip;
+import chip.Quirks;
+
+/**
+ * 8XYE: Shifts VX left by one. VF is set to the value of the most significant bit of VX before the shift<br/>
+ * With {@link Quirks#shiftsVY()} VY is shifted into VX instead. VF is written first like {@link Quirks#LEGACY}, see
+ * {@link Opcode8XYEShiftLeftFlagLast}
+ */
+public class Opcode8XYEShiftLeft implements IOpcode {
+	
+	private final int x;
+	/**
+	 * The register which is shifted, X or Y
+	 */
+	private final int source;
+	/**
+	 * Moves the shifted out bit down to 1, 0 keeps it at 0x80 like {@link Quirks#LEGACY}
+	 */
+	private final int flagShift;
+	
+	public Opcode8XYEShiftLeft(int opcode) {
+		this(opcode, Quirks.LEGACY);
+	}
+	
+	public Opcode8XYEShiftLeft(int opcode, Quirks quirks) {
+		x = (opcode & 0x0F00) >> 8;
+		source = quirks.shiftsVY() ? (opcode & 0x00F0) >> 4 : x;
+		flagShift = quirks.hasExactFlags() ? 7 : 0;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int value = chip.getRegister(source);
+		chip.setRegister(0xF, (value & 0x80) >> flagShift);
+		chip.setRegister(x, value << 1);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,36 @@
+package chip.opcode;
+
+import chip.Chip;
+import chip.Quirks;
+
+/**
+ * 8XYE: Shifts VX (with {@link Quirks#shiftsVY()} VY) left by one into VX, VF is set to the shifted out bit<br/>
+ * VF is written after VX, so with X = F it holds the flag like on the real machines
+ */
+public class Opcode8XYEShiftLeftFlagLast implements IOpcode {
+	
+	private final int x;
+	/**
+	 * The register which is shifted, X or Y
+	 */
+	private final int source;
+	/**
+	 * Moves the shifted out bit down to 1, 0 keeps it at 0x80
+	 */
+	private final int flagShift;
+	
+	public Opcode8XYEShiftLeftFlagLast(int opcode, Quirks quirks) {
+		x = (opcode & 0x0F00) >> 8;
+		source = quirks.shiftsVY() ? (opcode & 0x00F0) >> 4 : x;
+		flagShift = quirks.hasExactFlags() ? 7 : 0;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int value = chip.getRegister(source);
+		chip.setRegister(x, value << 1);
+		chip.setRegister(0xF, (value & 0x80) >> flagShift);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,27 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * 9XY0: Skips the next instruction if VX doesn't equal VY
+ */
+public class Opcode9XY0SkipRegisterNotEqual implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	
+	public Opcode9XY0SkipRegisterNotEqual(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		if(chip.getRegister(x) != chip.getRegister(y)) {
+			chip.skipNextInstruction();
+		} else {
+			chip.setProgramCounter(chip.getProgramCounter() + 2);
+		}
+	}
+
+}
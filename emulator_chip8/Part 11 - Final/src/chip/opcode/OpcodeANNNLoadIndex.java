@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * ANNN: Sets I to NNN
+ */
+public class OpcodeANNNLoadIndex implements IOpcode {
+	
+	private final int nnn;
+	
+	public OpcodeANNNLoadIndex(int opcode) {
+		nnn = opcode & 0x0FFF;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setIndex(nnn);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,32 @@
+package chip.opcode;
+
+import chip.Chip;
+import chip.Quirks;
+
+/**
+ * BNNN: Jumps to the address NNN plus V0<br/>
+ * With {@link Quirks#jumpsWithVX()} it is BXNN, which adds VX instead
+ */
+public class OpcodeBNNNJumpOffset implements IOpcode {
+	
+	private final int nnn;
+	/**
+	 * The register added to the address, 0 or X
+	 */
+	private final int offset;
+	
+	public OpcodeBNNNJumpOffset(int opcode) {
+		this(opcode, Quirks.LEGACY);
+	}
+	
+	public OpcodeBNNNJumpOffset(int opcode, Quirks quirks) {
+		nnn = opcode & 0x0FFF;
+		offset = quirks.jumpsWithVX() ? (opcode & 0x0F00) >> 8 : 0;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setProgramCounter(nnn + chip.getRegister(offset));
+	}
+
+}
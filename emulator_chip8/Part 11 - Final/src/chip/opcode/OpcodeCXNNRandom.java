@@ -0,0 +1,24 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * CXNN: Sets VX to a random number and NN
+ */
+public class OpcodeCXNNRandom implements IOpcode {
+	
+	private final int x;
+	private final int nn;
+	
+	public OpcodeCXNNRandom(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		nn = opcode & 0x00FF;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setRegister(x, chip.nextRandom() & nn);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
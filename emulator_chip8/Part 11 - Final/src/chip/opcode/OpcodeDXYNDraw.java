@@ -0,0 +1,26 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * DXYN: Draws a sprite at (VX, VY) size (8, N), DXY0: size (16, 16). Sprite is located at I
+ */
+public class OpcodeDXYNDraw implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	private final int n;
+	
+	public OpcodeDXYNDraw(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+		n = opcode & 0x000F;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setRegister(0xF, chip.drawSprite(chip.getRegister(x), chip.getRegister(y), n));
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,27 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * DXYN: Draws a sprite like {@link OpcodeDXYNDraw}, but cuts off what lies beyond the edges of the display<br/>
+ * Used with {@link chip.Quirks#clipsSprites()}
+ */
+public class OpcodeDXYNDrawClipped implements IOpcode {
+	
+	private final int x;
+	private final int y;
+	private final int n;
+	
+	public OpcodeDXYNDrawClipped(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+		y = (opcode & 0x00F0) >> 4;
+		n = opcode & 0x000F;
+	}
+	
+	@Override
+	public void execute(Chip chip) {
+		chip.setRegister(0xF, chip.drawClippedSprite(chip.getRegister(x), chip.getRegister(y), n));
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,25 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * EX9E: Skips the next instruction if the key VX is pressed
+ */
+public class OpcodeEX9ESkipKeyPressed implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeEX9ESkipKeyPressed(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		if(chip.isKeyPressed(chip.getRegister(x))) {
+			chip.skipNextInstruction();
+		} else {
+			chip.setProgramCounter(chip.getProgramCounter() + 2);
+		}
+	}
+
+}
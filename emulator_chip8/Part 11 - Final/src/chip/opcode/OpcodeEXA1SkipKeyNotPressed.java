@@ -0,0 +1,25 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * EXA1: Skips the next instruction if the key VX is NOT pressed
+ */
+public class OpcodeEXA1SkipKeyNotPressed implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeEXA1SkipKeyNotPressed(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		if(!chip.isKeyPressed(chip.getRegister(x))) {
+			chip.skipNextInstruction();
+		} else {
+			chip.setProgramCounter(chip.getProgramCounter() + 2);
+		}
+	}
+
+}
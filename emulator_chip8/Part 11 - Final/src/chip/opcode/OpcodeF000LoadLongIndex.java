@@ -0,0 +1,17 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * F000 NNNN: Sets I to the 16-bit address following the opcode (XO-CHIP)
+ */
+public class OpcodeF000LoadLongIndex implements IOpcode {
+
+	@Override
+	public void execute(Chip chip) {
+		int pc = chip.getProgramCounter();
+		chip.setIndex((chip.readMemory(pc + 2) << 8) | chip.readMemory(pc + 3));
+		chip.setProgramCounter(pc + 4);
+	}
+
+}
@@ -0,0 +1,15 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * F002: Loads the audio pattern at I (XO-CHIP), ignored as the beep is a fixed square wave
+ */
+public class OpcodeF002LoadAudioPattern implements IOpcode {
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FN01: Selects the bit planes N which are drawn, scrolled and cleared (XO-CHIP)
+ */
+public class OpcodeFN01SelectPlanes implements IOpcode {
+	
+	private final int n;
+	
+	public OpcodeFN01SelectPlanes(int opcode) {
+		n = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setPlaneMask(n);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
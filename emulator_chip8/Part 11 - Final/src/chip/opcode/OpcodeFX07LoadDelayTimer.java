@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX07: Sets VX to the value of the delay timer
+ */
+public class OpcodeFX07LoadDelayTimer implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeFX07LoadDelayTimer(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setRegister(x, chip.getDelayTimer());
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
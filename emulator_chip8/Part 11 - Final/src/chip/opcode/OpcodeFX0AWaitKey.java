@@ -0,0 +1,28 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX0A: A key press is awaited, and then stored in VX<br/>
+ * Blocks the chip (see {@link Chip#awaitKey()}) and executes again once a key is pressed
+ */
+public class OpcodeFX0AWaitKey implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeFX0AWaitKey(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int key = chip.getPressedKey();
+		if(key != -1) {
+			chip.setRegister(x, key);
+			chip.setProgramCounter(chip.getProgramCounter() + 2);
+		} else {
+			chip.awaitKey();
+		}
+	}
+
+}
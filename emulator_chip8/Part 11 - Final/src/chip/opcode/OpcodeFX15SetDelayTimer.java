@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX15: Sets the delay timer to VX
+ */
+public class OpcodeFX15SetDelayTimer implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeFX15SetDelayTimer(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setDelayTimer(chip.getRegister(x));
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
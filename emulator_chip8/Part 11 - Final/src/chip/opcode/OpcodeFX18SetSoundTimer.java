@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX18: Sets the sound timer to VX
+ */
+public class OpcodeFX18SetSoundTimer implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeFX18SetSoundTimer(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setSoundTimer(chip.getRegister(x));
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
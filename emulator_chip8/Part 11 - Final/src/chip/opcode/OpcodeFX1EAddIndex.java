@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX1E: Adds VX to I
+ */
+public class OpcodeFX1EAddIndex implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeFX1EAddIndex(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setIndex(chip.getIndex() + chip.getRegister(x));
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
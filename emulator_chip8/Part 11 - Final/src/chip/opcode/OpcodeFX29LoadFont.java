@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX29: Sets I to the location of the sprite for the character VX (Fontset)
+ */
+public class OpcodeFX29LoadFont implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeFX29LoadFont(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setIndex(0x050 + (chip.getRegister(x) * 5));
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
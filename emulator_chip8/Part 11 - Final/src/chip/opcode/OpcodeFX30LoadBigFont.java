@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX30: Sets I to the location of the big sprite for the digit VX (SUPER-CHIP)
+ */
+public class OpcodeFX30LoadBigFont implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeFX30LoadBigFont(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setIndex(0x0A0 + ((chip.getRegister(x) & 0xF) * 10));
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,26 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX33: Stores a binary-coded decimal value VX in I, I + 1 and I + 2
+ */
+public class OpcodeFX33StoreBCD implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeFX33StoreBCD(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int value = chip.getRegister(x);
+		int index = chip.getIndex();
+		chip.writeMemory(index, value / 100);
+		chip.writeMemory(index + 1, (value / 10) % 10);
+		chip.writeMemory(index + 2, value % 10);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,15 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX3A: Sets the audio pitch to VX (XO-CHIP), ignored like F002
+ */
+public class OpcodeFX3ASetPitch implements IOpcode {
+
+	@Override
+	public void execute(Chip chip) {
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
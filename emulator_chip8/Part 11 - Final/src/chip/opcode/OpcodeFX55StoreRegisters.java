@@ -0,0 +1,37 @@
+package chip.opcode;
+
+import chip.Chip;
+import chip.Quirks;
+
+/**
+ * FX55: Stores V0 to VX in memory starting at address I<br/>
+ * I is incremented depending on the {@link Quirks}, not at all by default
+ */
+public class OpcodeFX55StoreRegisters implements IOpcode {
+	
+	private final int x;
+	/**
+	 * The amount I is moved afterwards, see {@link Quirks#getStoreIncrement(int)}
+	 */
+	private final int increment;
+	
+	public OpcodeFX55StoreRegisters(int opcode) {
+		this(opcode, Quirks.LEGACY);
+	}
+	
+	public OpcodeFX55StoreRegisters(int opcode, Quirks quirks) {
+		x = (opcode & 0x0F00) >> 8;
+		increment = quirks.getStoreIncrement(x);
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int index = chip.getIndex();
+		for(int i = 0; i <= x; i++) {
+			chip.writeMemory(index + i, chip.getRegister(i));
+		}
+		chip.setIndex(index + increment);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
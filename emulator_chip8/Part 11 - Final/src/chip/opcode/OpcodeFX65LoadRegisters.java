@@ -0,0 +1,37 @@
+package chip.opcode;
+
+import chip.Chip;
+import chip.Quirks;
+
+/**
+ * FX65: Fills V0 to VX with values from memory starting at address I<br/>
+ * I is incremented depending on the {@link Quirks}, by X + 1 by default
+ */
+public class OpcodeFX65LoadRegisters implements IOpcode {
+	
+	private final int x;
+	/**
+	 * The amount I is moved afterwards, see {@link Quirks#getLoadIncrement(int)}
+	 */
+	private final int increment;
+	
+	public OpcodeFX65LoadRegisters(int opcode) {
+		this(opcode, Quirks.LEGACY);
+	}
+	
+	public OpcodeFX65LoadRegisters(int opcode, Quirks quirks) {
+		x = (opcode & 0x0F00) >> 8;
+		increment = quirks.getLoadIncrement(x);
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		int index = chip.getIndex();
+		for(int i = 0; i <= x; i++) {
+			chip.setRegister(i, chip.readMemory(index + i));
+		}
+		chip.setIndex(index + increment);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX75: Stores V0 to VX in the RPL user flags (SUPER-CHIP)
+ */
+public class OpcodeFX75StoreFlags implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeFX75StoreFlags(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.storeFlags(x);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * FX85: Fills V0 to VX from the RPL user flags (SUPER-CHIP)
+ */
+public class OpcodeFX85LoadFlags implements IOpcode {
+	
+	private final int x;
+	
+	public OpcodeFX85LoadFlags(int opcode) {
+		x = (opcode & 0x0F00) >> 8;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		chip.loadFlags(x);
+		chip.setProgramCounter(chip.getProgramCounter() + 2);
+	}
+
+}
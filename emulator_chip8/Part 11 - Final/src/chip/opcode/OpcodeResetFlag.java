@@ -0,0 +1,23 @@
+package chip.opcode;
+
+import chip.Chip;
+
+/**
+ * Executes 8XY1, 8XY2 or 8XY3 and sets VF to 0 afterwards, like the COSMAC VIP did<br/>
+ * Used with {@link chip.Quirks#resetsFlag()}
+ */
+public class OpcodeResetFlag implements IOpcode {
+	
+	private final IOpcode logic;
+	
+	public OpcodeResetFlag(IOpcode logic) {
+		this.logic = logic;
+	}
+	
+	@Override
+	public void execute(Chip chip) {
+		logic.execute(chip);
+		chip.setRegister(0xF, 0);
+	}
+
+}
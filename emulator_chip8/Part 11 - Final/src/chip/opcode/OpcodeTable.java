@@ -0,0 +1,226 @@
+package chip.opcode;
+
+import chip.Quirks;
+
+/**
+ * A 64K table containing a predecoded handler for every possible 16-bit opcode<br/>
+ * The handlers are immutable so a single table per {@link Quirks} profile is shared by all chips. The quirks are
+ * resolved while decoding by picking a separate handler class or by storing the resolved operand, the handlers never
+ * check them
+ */
+public class OpcodeTable {
+	
+	private static final IOpcode[][] tables = new IOpcode[Quirks.values().length][];
+	
+	/**
+	 * Gets the shared table of {@link Quirks#LEGACY}
+	 * @return
+	 * The handlers indexed by opcode
+	 */
+	public static IOpcode[] getTable() {
+		return getTable(Quirks.LEGACY);
+	}
+	
+	/**
+	 * Gets the shared table of a quirk profile, building it on first use
+	 * @param quirks
+	 * @return
+	 * The handlers indexed by opcode
+	 */
+	public static synchronized IOpcode[] getTable(Quirks quirks) {
+		IOpcode[] table = tables[quirks.ordinal()];
+		if(table == null) {
+			table = build(quirks);
+			tables[quirks.ordinal()] = table;
+		}
+		return table;
+	}
+	
+	private static IOpcode[] build(Quirks quirks) {
+		IOpcode[] table = new IOpcode[0x10000];
+		for(int opcode = 0; opcode < table.length; opcode++) {
+			table[opcode] = decode(opcode, quirks);
+		}
+		return table;
+	}
+	
+	/**
+	 * Creates the handler for a single opcode with the {@link Quirks#LEGACY} behaviour
+	 * @param opcode
+	 * @return
+	 */
+	public static IOpcode decode(int opcode) {
+		return decode(opcode, Quirks.LEGACY);
+	}
+	
+	/**
+	 * A big Factory-Method to create the correct handler for a single opcode<br/>
+	 * Decodes exactly like the switch interpreter in {@link chip.Chip} does
+	 * @param opcode
+	 * The 16-bit opcode
+	 * @param quirks
+	 * The behaviour the handler is built for
+	 * @return
+	 * The handler with the X, Y, N, NN and NNN fields already extracted
+	 */
+	public static IOpcode decode(int opcode, Quirks quirks) {
+		switch(opcode & 0xF000) {
+		
+		case 0x0000:
+			switch(opcode & 0x00FF) {
+			case 0x00E0:
+				return new Opcode00E0ClearScreen();
+			case 0x00EE:
+				return new Opcode00EEReturn();
+			case 0x00FB:
+				return new Opcode00FBScrollRight();
+			case 0x00FC:
+				return new Opcode00FCScrollLeft();
+			case 0x00FD:
+				return new Opcode00FDExit();
+			case 0x00FE:
+				return new Opcode00FELowResolution();
+			case 0x00FF:
+				return new Opcode00FFHighResolution();
+			default:
+				if((opcode & 0x00F0) == 0x00C0) {
+					return new Opcode00CNScrollDown(opcode);
+				} else if((opcode & 0x00F0) == 0x00D0) {
+					return new Opcode00DNScrollUp(opcode);
+				}
+				return new OpcodeUnsupported(opcode);
+			}
+			
+		case 0x1000:
+			return new Opcode1NNNJump(opcode);
+		case 0x2000:
+			return new Opcode2NNNCall(opcode);
+		case 0x3000:
+			return new Opcode3XNNSkipEqual(opcode);
+		case 0x4000:
+			return new Opcode4XNNSkipNotEqual(opcode);
+		case 0x5000:
+			switch(opcode & 0x000F) {
+			case 0x0002:
+				return new Opcode5XY2StoreRange(opcode);
+			case 0x0003:
+				return new Opcode5XY3LoadRange(opcode);
+			default:
+				return new Opcode5XY0SkipRegisterEqual(opcode);
+			}
+		case 0x6000:
+			return new Opcode6XNNLoad(opcode);
+		case 0x7000:
+			return new Opcode7XNNAdd(opcode);
+			
+		case 0x8000:
+			switch(opcode & 0x000F) {
+			case 0x0000:
+				return new Opcode8XY0Load(opcode);
+			case 0x0001:
+				return resetFlag(new Opcode8XY1Or(opcode), quirks);
+			case 0x0002:
+				return resetFlag(new Opcode8XY2And(opcode), quirks);
+			case 0x0003:
+				return resetFlag(new Opcode8XY3Xor(opcode), quirks);
+			case 0x0004:
+				if(quirks.hasExactFlags()) {
+					return new Opcode8XY4AddFlagLast(opcode);
+				}
+				return new Opcode8XY4Add(opcode);
+			case 0x0005:
+				if(quirks.hasExactFlags()) {
+					return new Opcode8XY5SubtractFlagLast(opcode, quirks);
+				}
+				return new Opcode8XY5Subtract(opcode, quirks);
+			case 0x0006:
+				if(quirks.hasExactFlags()) {
+					return new Opcode8XY6ShiftRightFlagLast(opcode, quirks);
+				}
+				return new Opcode8XY6ShiftRight(opcode, quirks);
+			case 0x0007:
+				if(quirks.hasExactFlags()) {
+					return new Opcode8XY7SubtractReverseFlagLast(opcode);
+				}
+				return new Opcode8XY7SubtractReverse(opcode);
+			case 0x000E:
+				if(quirks.hasExactFlags()) {
+					return new Opcode8XYEShiftLeftFlagLast(opcode, quirks);
+				}
+				return new Opcode8XYEShiftLeft(opcode, quirks);
+			default:
+				return new OpcodeUnsupported(opcode);
+			}
+			
+		case 0x9000:
+			return new Opcode9XY0SkipRegisterNotEqual(opcode);
+		case 0xA000:
+			return new OpcodeANNNLoadIndex(opcode);
+		case 0xB000:
+			return new OpcodeBNNNJumpOffset(opcode, quirks);
+		case 0xC000:
+			return new OpcodeCXNNRandom(opcode);
+		case 0xD000:
+			if(quirks.clipsSprites()) {
+				return new OpcodeDXYNDrawClipped(opcode);
+			}
+			return new OpcodeDXYNDraw(opcode);
+			
+		case 0xE000:
+			switch(opcode & 0x00FF) {
+			case 0x009E:
+				return new OpcodeEX9ESkipKeyPressed(opcode);
+			case 0x00A1:
+				return new OpcodeEXA1SkipKeyNotPressed(opcode);
+			default:
+				return new OpcodeUnsupported(opcode);
+			}
+			
+		case 0xF000:
+			switch(opcode & 0x00FF) {
+			case 0x0000:
+				return new OpcodeF000LoadLongIndex();
+			case 0x0001:
+				return new OpcodeFN01SelectPlanes(opcode);
+			case 0x0002:
+				return new OpcodeF002LoadAudioPattern();
+			case 0x0007:
+				return new OpcodeFX07LoadDelayTimer(opcode);
+			case 0x000A:
+				return new OpcodeFX0AWaitKey(opcode);
+			case 0x0015:
+				return new OpcodeFX15SetDelayTimer(opcode);
+			case 0x0018:
+				return new OpcodeFX18SetSoundTimer(opcode);
+			case 0x001E:
+				return new OpcodeFX1EAddIndex(opcode);
+			case 0x0029:
+				return new OpcodeFX29LoadFont(opcode);
+			case 0x0030:
+				return new OpcodeFX30LoadBigFont(opcode);
+			case 0x0033:
+				return new OpcodeFX33StoreBCD(opcode);
+			case 0x003A:
+				return new OpcodeFX3ASetPitch();
+			case 0x0055:
+				return new OpcodeFX55StoreRegisters(opcode, quirks);
+			case 0x0065:
+				return new OpcodeFX65LoadRegisters(opcode, quirks);
+			case 0x0075:
+				return new OpcodeFX75StoreFlags(opcode);
+			case 0x0085:
+				return new OpcodeFX85LoadFlags(opcode);
+			default:
+				return new OpcodeUnsupported(opcode);
+			}
+			
+		default:
+			return new OpcodeUnsupported(opcode);
+		}
+	}
+	
+	private static IOpcode resetFlag(IOpcode logic, Quirks quirks) {
+		return quirks.resetsFlag() ? new OpcodeResetFlag(logic) : logic;
+	}
+
+}
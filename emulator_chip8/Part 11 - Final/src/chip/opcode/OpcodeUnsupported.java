@@ -0,0 +1,22 @@
+package chip.opcode;
+
+import chip.Chip;
+import chip.UnsupportedOpcodeException;
+
+/**
+ * Placeholder for every opcode which isn't part of the instruction set (including 0NNN)
+ */
+public class OpcodeUnsupported implements IOpcode {
+	
+	private final int opcode;
+	
+	public OpcodeUnsupported(int opcode) {
+		this.opcode = opcode;
+	}
+
+	@Override
+	public void execute(Chip chip) {
+		throw new UnsupportedOpcodeException(chip.getProgramCounter(), opcode);
+	}
+
+}
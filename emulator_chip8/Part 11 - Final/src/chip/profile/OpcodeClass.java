@@ -0,0 +1,201 @@
+package chip.profile;
+
+/**
+ * The instructions an opcode can belong to: the 35 Chip 8 instructions followed by the SUPER-CHIP and XO-CHIP ones<br/>
+ * Classifies exactly like {@link chip.opcode.OpcodeTable#decode(int)}, through a 64K lookup table
+ */
+public enum OpcodeClass {
+	
+	OP_0NNN, OP_00E0, OP_00EE, OP_1NNN, OP_2NNN, OP_3XNN, OP_4XNN, OP_5XY0, OP_6XNN, OP_7XNN,
+	OP_8XY0, OP_8XY1, OP_8XY2, OP_8XY3, OP_8XY4, OP_8XY5, OP_8XY6, OP_8XY7, OP_8XYE, OP_9XY0,
+	OP_ANNN, OP_BNNN, OP_CXNN, OP_DXYN, OP_EX9E, OP_EXA1,
+	OP_FX07, OP_FX0A, OP_FX15, OP_FX18, OP_FX1E, OP_FX29, OP_FX33, OP_FX55, OP_FX65,
+	OP_00CN, OP_00DN, OP_00FB, OP_00FC, OP_00FD, OP_00FE, OP_00FF, OP_5XY2, OP_5XY3,
+	OP_F000, OP_FN01, OP_F002, OP_FX30, OP_FX3A, OP_FX75, OP_FX85,
+	/**
+	 * Any opcode which isn't an instruction
+	 */
+	UNSUPPORTED;
+	
+	private static final OpcodeClass[] values = values();
+	/**
+	 * The ordinal of the class per 16-bit opcode
+	 */
+	private static final byte[] table = build();
+	
+	/**
+	 * Gets the name as it is written in opcode listings
+	 * @return
+	 */
+	public String getName() {
+		return (this == UNSUPPORTED) ? "????" : name().substring(3);
+	}
+	
+	/**
+	 * Gets the index of the class of an opcode, cheap enough to be done for every executed opcode
+	 * @param opcode
+	 * @return
+	 * The ordinal of the {@link OpcodeClass}
+	 */
+	public static int indexOf(int opcode) {
+		return table[opcode & 0xFFFF];
+	}
+	
+	/**
+	 * Gets the class of an opcode
+	 * @param opcode
+	 * @return
+	 */
+	public static OpcodeClass of(int opcode) {
+		return values[indexOf(opcode)];
+	}
+	
+	/**
+	 * Gets the class by its index
+	 * @param index
+	 * @return
+	 */
+	public static OpcodeClass get(int index) {
+		return values[index];
+	}
+	
+	private static byte[] build() {
+		byte[] table = new byte[0x10000];
+		for(int opcode = 0; opcode < table.length; opcode++) {
+			table[opcode] = (byte)classify(opcode).ordinal();
+		}
+		return table;
+	}
+	
+	private static OpcodeClass classify(int opcode) {
+		switch(opcode & 0xF000) {
+		case 0x0000:
+			switch(opcode & 0x00FF) {
+			case 0x00E0:
+				return OP_00E0;
+			case 0x00EE:
+				return OP_00EE;
+			case 0x00FB:
+				return OP_00FB;
+			case 0x00FC:
+				return OP_00FC;
+			case 0x00FD:
+				return OP_00FD;
+			case 0x00FE:
+				return OP_00FE;
+			case 0x00FF:
+				return OP_00FF;
+			default:
+				if((opcode & 0x00F0) == 0x00C0) {
+					return OP_00CN;
+				} else if((opcode & 0x00F0) == 0x00D0) {
+					return OP_00DN;
+				}
+				return OP_0NNN;
+			}
+		case 0x1000:
+			return OP_1NNN;
+		case 0x2000:
+			return OP_2NNN;
+		case 0x3000:
+			return OP_3XNN;
+		case 0x4000:
+			return OP_4XNN;
+		case 0x5000:
+			switch(opcode & 0x000F) {
+			case 0x0002:
+				return OP_5XY2;
+			case 0x0003:
+				return OP_5XY3;
+			default:
+				return OP_5XY0;
+			}
+		case 0x6000:
+			return OP_6XNN;
+		case 0x7000:
+			return OP_7XNN;
+		case 0x8000:
+			switch(opcode & 0x000F) {
+			case 0x0000:
+				return OP_8XY0;
+			case 0x0001:
+				return OP_8XY1;
+			case 0x0002:
+				return OP_8XY2;
+			case 0x0003:
+				return OP_8XY3;
+			case 0x0004:
+				return OP_8XY4;
+			case 0x0005:
+				return OP_8XY5;
+			case 0x0006:
+				return OP_8XY6;
+			case 0x0007:
+				return OP_8XY7;
+			case 0x000E:
+				return OP_8XYE;
+			default:
+				return UNSUPPORTED;
+			}
+		case 0x9000:
+			return OP_9XY0;
+		case 0xA000:
+			return OP_ANNN;
+		case 0xB000:
+			return OP_BNNN;
+		case 0xC000:
+			return OP_CXNN;
+		case 0xD000:
+			return OP_DXYN;
+		case 0xE000:
+			switch(opcode & 0x00FF) {
+			case 0x009E:
+				return OP_EX9E;
+			case 0x00A1:
+				return OP_EXA1;
+			default:
+				return UNSUPPORTED;
+			}
+		case 0xF000:
+			switch(opcode & 0x00FF) {
+			case 0x0000:
+				return OP_F000;
+			case 0x0001:
+				return OP_FN01;
+			case 0x0002:
+				return OP_F002;
+			case 0x0007:
+				return OP_FX07;
+			case 0x000A:
+				return OP_FX0A;
+			case 0x0015:
+				return OP_FX15;
+			case 0x0018:
+				return OP_FX18;
+			case 0x001E:
+				return OP_FX1E;
+			case 0x0029:
+				return OP_FX29;
+			case 0x0030:
+				return OP_FX30;
+			case 0x0033:
+				return OP_FX33;
+			case 0x003A:
+				return OP_FX3A;
+			case 0x0055:
+				return OP_FX55;
+			case 0x0065:
+				return OP_FX65;
+			case 0x0075:
+				return OP_FX75;
+			case 0x0085:
+				return OP_FX85;
+			default:
+				return UNSUPPORTED;
+			}
+		default:
+			return UNSUPPORTED;
+		}
+	}
+
+}
@@ -0,0 +1,111 @@
+package chip.profile;
+
+import java.io.IOException;
+
+import chip.Chip;
+import chip.trace.TraceDecoder;
+
+/**
+ * Renders the counters of a {@link Profiler}
+ */
+public class ProfileReport {
+	
+	/**
+	 * Writes the opcode classes and the hottest addresses, both sorted from most to least executed
+	 * @param profiler
+	 * @param chip
+	 * The chip which was profiled, its memory is used to show the opcode at each address
+	 * @param limit
+	 * The maximum amount of addresses listed
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void writeHotSpots(Profiler profiler, Chip chip, int limit, Appendable out) throws IOException {
+		long[] classCounts = profiler.getClassCounts();
+		long[] addressCounts = profiler.getAddressCounts();
+		long total = 0;
+		for(long count : classCounts) {
+			total += count;
+		}
+		String newLine = System.lineSeparator();
+		
+		out.append(String.format("%,d opcodes", total)).append(newLine).append(newLine);
+		out.append(String.format("%-8s %16s %7s", "Opcode", "Count", "%")).append(newLine);
+		for(int index : sortDescending(classCounts, classCounts.length)) {
+			out.append(String.format("%-8s %,16d %6.2f%%", OpcodeClass.get(index).getName(), classCounts[index], percentage(classCounts[index], total)));
+			out.append(newLine);
+		}
+		
+		out.append(newLine);
+		out.append(String.format("%-8s %-6s %16s %7s  %s", "Address", "Opcode", "Count", "%", "Description")).append(newLine);
+		for(int address : sortDescending(addressCounts, limit)) {
+			int opcode = (chip.readMemory(address) << 8) | chip.readMemory((address + 1) % chip.getMemorySize());
+			out.append(String.format("0x%04X   %04X   %,16d %6.2f%%  %s", address, opcode, addressCounts[address],
+					percentage(addressCounts[address], total), TraceDecoder.describe(opcode)));
+			out.append(newLine);
+		}
+	}
+	
+	/**
+	 * Writes one line per call stack in the collapsed format of flame graph tools:<br/>
+	 * <code>0x200;0x2A4;0x3B0 1234</code> with the subroutine addresses from outermost to innermost and the amount of
+	 * opcodes executed directly in the innermost one
+	 * @param profiler
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void writeCollapsedStacks(Profiler profiler, Appendable out) throws IOException {
+		StringBuilder stack = new StringBuilder();
+		for(int call = 0; call < profiler.getCallCount(); call++) {
+			long count = profiler.getSelfCount(call);
+			if(count == 0) {
+				continue;
+			}
+			
+			stack.setLength(0);
+			for(int frame = call; frame != -1; frame = profiler.getParent(frame)) {
+				String name = String.format("0x%03X", profiler.getTarget(frame));
+				stack.insert(0, (stack.length() == 0) ? name : name + ";");
+			}
+			out.append(stack).append(' ').append(Long.toString(count)).append(System.lineSeparator());
+		}
+	}
+	
+	/**
+	 * Finds the indices of the highest non-zero counters
+	 * @param counts
+	 * @param limit
+	 * The maximum amount of indices
+	 * @return
+	 * The indices from highest to lowest count
+	 */
+	private static int[] sortDescending(long[] counts, int limit) {
+		if(limit <= 0) {
+			return new int[0];
+		}
+		int[] top = new int[limit];
+		int size = 0;
+		for(int i = 0; i < counts.length; i++) {
+			if(counts[i] == 0 || (size == limit && counts[i] <= counts[top[size - 1]])) {
+				continue;
+			}
+			
+			//Insert into the sorted top, dropping the lowest if it is full
+			int position = (size < limit) ? size++ : size - 1;
+			while(position > 0 && counts[top[position - 1]] < counts[i]) {
+				top[position] = top[position - 1];
+				position--;
+			}
+			top[position] = i;
+		}
+		
+		int[] result = new int[size];
+		System.arraycopy(top, 0, result, 0, size);
+		return result;
+	}
+	
+	private static double percentage(long count, long total) {
+		return (total == 0) ? 0 : (count * 100D) / total;
+	}
+
+}
@@ -0,0 +1,188 @@
+package chip.profile;
+
+/**
+ * Counts the executed opcodes per {@link OpcodeClass}, per address and per call stack<br/>
+ * The call stack is followed from the executed 2NNN and 00EE opcodes as a tree of calls, every opcode is counted on
+ * the call it ran in. All counters are preallocated primitive arrays, recording never allocates.
+ * The reports are created by the {@link ProfileReport}
+ */
+public class Profiler {
+	
+	/**
+	 * The maximum amount of distinct call stacks, calls beyond it are counted on their caller
+	 */
+	public static final int MAX_CALLS = 4096;
+	/**
+	 * The call which is active when nothing has been called
+	 */
+	public static final int ROOT = 0;
+	
+	private final long[] classCounts;
+	private final long[] addressCounts;
+	
+	/**
+	 * Per call: the call it was made from, the address which was called, its first and next called call
+	 */
+	private final int[] parent;
+	private final int[] target;
+	private final int[] firstChild;
+	private final int[] nextSibling;
+	/**
+	 * Per call: the amount of opcodes executed directly in it
+	 */
+	private final long[] selfCounts;
+	/**
+	 * The amount of calls in use
+	 */
+	private int calls;
+	/**
+	 * The call the chip is currently executing in
+	 */
+	private int current;
+	
+	/**
+	 * Creates a profiler for a chip
+	 * @param memorySize
+	 * The amount of addresses, see {@link chip.Chip#getMemorySize()}
+	 */
+	public Profiler(int memorySize) {
+		classCounts = new long[OpcodeClass.values().length];
+		addressCounts = new long[memorySize];
+		parent = new int[MAX_CALLS];
+		target = new int[MAX_CALLS];
+		firstChild = new int[MAX_CALLS];
+		nextSibling = new int[MAX_CALLS];
+		selfCounts = new long[MAX_CALLS];
+		clear();
+	}
+	
+	/**
+	 * Counts an opcode right before it is executed
+	 * @param pc
+	 * @param opcode
+	 */
+	public void record(int pc, int opcode) {
+		record(pc, opcode, 1);
+	}
+	
+	/**
+	 * Counts an opcode which is executed several times in a row, for example a skipped idle loop
+	 * @param pc
+	 * @param opcode
+	 * @param count
+	 */
+	public void record(int pc, int opcode, long count) {
+		classCounts[OpcodeClass.indexOf(opcode)] += count;
+		addressCounts[pc] += count;
+		selfCounts[current] += count;
+		
+		if((opcode & 0xF000) == 0x2000) {
+			current = enter(opcode & 0x0FFF);
+		} else if(opcode == 0x00EE && current != ROOT) {
+			current = parent[current];
+		}
+	}
+	
+	/**
+	 * Finds or creates the call to the address made from the current call
+	 * @param address
+	 * @return
+	 */
+	private int enter(int address) {
+		int child = firstChild[current];
+		while(child != -1) {
+			if(target[child] == address) {
+				return child;
+			}
+			child = nextSibling[child];
+		}
+		
+		if(calls == MAX_CALLS) {
+			//Out of room, keep counting on the caller
+			return current;
+		}
+		child = calls++;
+		parent[child] = current;
+		target[child] = address;
+		firstChild[child] = -1;
+		nextSibling[child] = firstChild[current];
+		firstChild[current] = child;
+		selfCounts[child] = 0;
+		return child;
+	}
+	
+	/**
+	 * Resets all counters and returns to the root call
+	 */
+	public void clear() {
+		for(int i = 0; i < classCounts.length; i++) {
+			classCounts[i] = 0;
+		}
+		for(int i = 0; i < addressCounts.length; i++) {
+			addressCounts[i] = 0;
+		}
+		calls = 1;
+		current = ROOT;
+		parent[ROOT] = -1;
+		target[ROOT] = 0x200;
+		firstChild[ROOT] = -1;
+		nextSibling[ROOT] = -1;
+		selfCounts[ROOT] = 0;
+	}
+	
+	/**
+	 * Gets the counters per opcode class
+	 * @return
+	 * The amount of executed opcodes indexed by {@link OpcodeClass#ordinal()}
+	 */
+	public long[] getClassCounts() {
+		return classCounts;
+	}
+	
+	/**
+	 * Gets the counters per address
+	 * @return
+	 * The amount of opcodes executed at each address
+	 */
+	public long[] getAddressCounts() {
+		return addressCounts;
+	}
+	
+	/**
+	 * Gets the amount of distinct call stacks, including the root
+	 * @return
+	 */
+	public int getCallCount() {
+		return calls;
+	}
+	
+	/**
+	 * Gets the call a call was made from
+	 * @param call
+	 * @return
+	 * The calling call or -1 for the {@link #ROOT}
+	 */
+	public int getParent(int call) {
+		return parent[call];
+	}
+	
+	/**
+	 * Gets the address a call jumped to
+	 * @param call
+	 * @return
+	 * The subroutine address, 0x200 for the {@link #ROOT}
+	 */
+	public int getTarget(int call) {
+		return target[call];
+	}
+	
+	/**
+	 * Gets the amount of opcodes executed directly in a call, not counting the calls made from it
+	 * @param call
+	 * @return
+	 */
+	public long getSelfCount(int call) {
+		return selfCounts[call];
+	}
+
+}
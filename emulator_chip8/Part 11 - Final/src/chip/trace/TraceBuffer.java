@@ -0,0 +1,101 @@
+package chip.trace;
+
+/**
+ * A preallocated ring buffer of executed opcodes<br/>
+ * Every record is stored as {@value #RECORD_SIZE} ints: pc, opcode, I and the 16 V registers packed 4 per int<br/>
+ * Recording never allocates, the text is only created by the {@link TraceDecoder}
+ */
+public class TraceBuffer {
+	
+	/**
+	 * The amount of ints per record
+	 */
+	public static final int RECORD_SIZE = 7;
+	
+	private final int[] records;
+	/**
+	 * The maximum amount of records, always a power of 2
+	 */
+	private final int capacity;
+	/**
+	 * The total amount of records written so far
+	 */
+	private long position;
+	
+	/**
+	 * Creates a new trace buffer
+	 * @param capacity
+	 * The amount of records to keep, rounded up to the next power of 2
+	 */
+	public TraceBuffer(int capacity) {
+		this.capacity = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		records = new int[this.capacity * RECORD_SIZE];
+	}
+	
+	/**
+	 * Stores the state right before an opcode is executed
+	 * @param pc
+	 * @param opcode
+	 * @param I
+	 * @param V
+	 * The 16 V registers
+	 */
+	public void record(int pc, int opcode, int I, char[] V) {
+		int offset = (int)(position & (capacity - 1)) * RECORD_SIZE;
+		records[offset] = pc;
+		records[offset + 1] = opcode;
+		records[offset + 2] = I;
+		for(int i = 0; i < 4; i++) {
+			int v = i * 4;
+			records[offset + 3 + i] = (V[v] << 24) | (V[v + 1] << 16) | (V[v + 2] << 8) | V[v + 3];
+		}
+		position++;
+	}
+	
+	/**
+	 * Forgets all records
+	 */
+	public void clear() {
+		position = 0;
+	}
+	
+	/**
+	 * Gets the amount of records which are still available
+	 * @return
+	 */
+	public int size() {
+		return (int)Math.min(position, capacity);
+	}
+	
+	/**
+	 * Gets the total amount of records written so far, including the overwritten ones
+	 * @return
+	 */
+	public long getPosition() {
+		return position;
+	}
+	
+	/**
+	 * Gets the offset into {@link #getRecords()} of a record
+	 * @param index
+	 * 0 for the oldest available record up to {@link #size()} - 1 for the newest
+	 * @return
+	 */
+	public int getOffset(int index) {
+		long record = position - size() + index;
+		return (int)(record & (capacity - 1)) * RECORD_SIZE;
+	}
+	
+	/**
+	 * Gets the raw record data
+	 * @return
+	 */
+	public int[] getRecords() {
+		return records;
+	}
+	
+	public int getCapacity() {
+		return capacity;
+	}
+
+}
@@ -0,0 +1,196 @@
+package chip.trace;
+
+import java.io.IOException;
+
+/**
+ * Renders the records of a {@link TraceBuffer} as readable text
+ */
+public class TraceDecoder {
+	
+	/**
+	 * Writes all available records from oldest to newest, one line per record
+	 * @param trace
+	 * @param out
+	 * @throws IOException
+	 */
+	public static void decode(TraceBuffer trace, Appendable out) throws IOException {
+		int[] records = trace.getRecords();
+		for(int i = 0; i < trace.size(); i++) {
+			int offset = trace.getOffset(i);
+			out.append(decodeRecord(records, offset)).append(System.lineSeparator());
+		}
+	}
+	
+	/**
+	 * Renders a single record
+	 * @param records
+	 * @param offset
+	 * @return
+	 * The record in the format: PC: OPCODE description | I V0..VF
+	 */
+	public static String decodeRecord(int[] records, int offset) {
+		int pc = records[offset];
+		int opcode = records[offset + 1];
+		StringBuilder line = new StringBuilder();
+		line.append(hex(pc, 3)).append(": ").append(hex(opcode, 4)).append(' ');
+		line.append(String.format("%-24s", describe(opcode)));
+		line.append(" | I = ").append(hex(records[offset + 2], 3)).append(" V =");
+		for(int i = 0; i < 16; i++) {
+			int packed = records[offset + 3 + (i / 4)];
+			int value = (packed >>> (24 - ((i % 4) * 8))) & 0xFF;
+			line.append(' ').append(hex(value, 2));
+		}
+		return line.toString();
+	}
+	
+	/**
+	 * Describes what an opcode does
+	 * @param opcode
+	 * @return
+	 */
+	public static String describe(int opcode) {
+		int x = (opcode & 0x0F00) >> 8;
+		int y = (opcode & 0x00F0) >> 4;
+		int n = opcode & 0x000F;
+		int nn = opcode & 0x00FF;
+		int nnn = opcode & 0x0FFF;
+		
+		switch(opcode & 0xF000) {
+		case 0x0000:
+			switch(nn) {
+			case 0xE0:
+				return "Clear screen";
+			case 0xEE:
+				return "Return";
+			case 0xFB:
+				return "Scroll right";
+			case 0xFC:
+				return "Scroll left";
+			case 0xFD:
+				return "Exit";
+			case 0xFE:
+				return "Low resolution";
+			case 0xFF:
+				return "High resolution";
+			default:
+				if(y == 0xC) {
+					return "Scroll down " + n;
+				} else if(y == 0xD) {
+					return "Scroll up " + n;
+				}
+				return "Unsupported";
+			}
+		case 0x1000:
+			return "Jump to " + hex(nnn, 3);
+		case 0x2000:
+			return "Call " + hex(nnn, 3);
+		case 0x3000:
+			return "Skip if V[" + hex(x, 1) + "] == " + nn;
+		case 0x4000:
+			return "Skip if V[" + hex(x, 1) + "] != " + nn;
+		case 0x5000:
+			switch(n) {
+			case 0x2:
+				return "Store V[" + hex(x, 1) + "] to V[" + hex(y, 1) + "]";
+			case 0x3:
+				return "Load V[" + hex(x, 1) + "] to V[" + hex(y, 1) + "]";
+			default:
+				return "Skip if V[" + hex(x, 1) + "] == V[" + hex(y, 1) + "]";
+			}
+		case 0x6000:
+			return "V[" + hex(x, 1) + "] = " + nn;
+		case 0x7000:
+			return "V[" + hex(x, 1) + "] += " + nn;
+		case 0x8000:
+			switch(n) {
+			case 0x0:
+				return "V[" + hex(x, 1) + "] = V[" + hex(y, 1) + "]";
+			case 0x1:
+				return "V[" + hex(x, 1) + "] |= V[" + hex(y, 1) + "]";
+			case 0x2:
+				return "V[" + hex(x, 1) + "] &= V[" + hex(y, 1) + "]";
+			case 0x3:
+				return "V[" + hex(x, 1) + "] ^= V[" + hex(y, 1) + "]";
+			case 0x4:
+				return "V[" + hex(x, 1) + "] += V[" + hex(y, 1) + "]";
+			case 0x5:
+				return "V[" + hex(x, 1) + "] -= V[" + hex(y, 1) + "]";
+			case 0x6:
+				return "V[" + hex(x, 1) + "] >>= 1";
+			case 0x7:
+				return "V[" + hex(x, 1) + "] = V[" + hex(y, 1) + "] - V[" + hex(x, 1) + "]";
+			case 0xE:
+				return "V[" + hex(x, 1) + "] <<= 1";
+			default:
+				return "Unsupported";
+			}
+		case 0x9000:
+			return "Skip if V[" + hex(x, 1) + "] != V[" + hex(y, 1) + "]";
+		case 0xA000:
+			return "I = " + hex(nnn, 3);
+		case 0xB000:
+			return "Jump to " + hex(nnn, 3) + " + V[0]";
+		case 0xC000:
+			return "V[" + hex(x, 1) + "] = random & " + nn;
+		case 0xD000:
+			return "Draw V[" + hex(x, 1) + "], V[" + hex(y, 1) + "], " + n;
+		case 0xE000:
+			switch(nn) {
+			case 0x9E:
+				return "Skip if key V[" + hex(x, 1) + "]";
+			case 0xA1:
+				return "Skip if not key V[" + hex(x, 1) + "]";
+			default:
+				return "Unsupported";
+			}
+		case 0xF000:
+			switch(nn) {
+			case 0x00:
+				return "I = long address";
+			case 0x01:
+				return "Select planes " + x;
+			case 0x02:
+				return "Audio pattern";
+			case 0x07:
+				return "V[" + hex(x, 1) + "] = delay_timer";
+			case 0x0A:
+				return "V[" + hex(x, 1) + "] = await key";
+			case 0x15:
+				return "delay_timer = V[" + hex(x, 1) + "]";
+			case 0x18:
+				return "sound_timer = V[" + hex(x, 1) + "]";
+			case 0x1E:
+				return "I += V[" + hex(x, 1) + "]";
+			case 0x29:
+				return "I = font V[" + hex(x, 1) + "]";
+			case 0x30:
+				return "I = big font V[" + hex(x, 1) + "]";
+			case 0x33:
+				return "BCD V[" + hex(x, 1) + "]";
+			case 0x3A:
+				return "Pitch = V[" + hex(x, 1) + "]";
+			case 0x55:
+				return "Store V[0] to V[" + hex(x, 1) + "]";
+			case 0x65:
+				return "Load V[0] to V[" + hex(x, 1) + "]";
+			case 0x75:
+				return "Store flags V[0] to V[" + hex(x, 1) + "]";
+			case 0x85:
+				return "Load flags V[0] to V[" + hex(x, 1) + "]";
+			default:
+				return "Unsupported";
+			}
+		default:
+			return "Unsupported";
+		}
+	}
+	
+	private static String hex(int value, int digits) {
+		String hex = Integer.toHexString(value).toUpperCase();
+		while(hex.length() < digits) {
+			hex = "0" + hex;
+		}
+		return hex;
+	}
+
+}
@@ -7,20 +7,27 @@ import java.awt.event.KeyListener;
 
 import javax.swing.JFrame;
 
-import chip.Chip;
+import chip.Keypad;
 
 public class ChipFrame extends JFrame implements KeyListener {
 	
 	private static final long serialVersionUID = 1L;
 	private ChipPanel panel;
-	private int[] keyBuffer;
+	private Keypad keypad;
 	private int[] keyIdToKey;
+	/**
+	 * If the rewind key (backspace) is being held down
+	 */
+	private volatile boolean rewinding;
 
-	public ChipFrame(Chip c) {
-		setPreferredSize(new Dimension(640, 320));
+	public ChipFrame(FrameExchange exchange, Keypad keypad, int scale) {
+		this.keypad = keypad;
+		int width = 64 * scale;
+		int height = 32 * scale;
+		setPreferredSize(new Dimension(width, height));
 		pack();
-		setPreferredSize(new Dimension(640 + getInsets().left + getInsets().right, 320 + getInsets().top + getInsets().bottom));
-		panel = new ChipPanel(c);
+		setPreferredSize(new Dimension(width + getInsets().left + getInsets().right, height + getInsets().top + getInsets().bottom));
+		panel = new ChipPanel(exchange, scale);
 		setLayout(new BorderLayout());
 		add(panel, BorderLayout.CENTER);
 		setDefaultCloseOperation(EXIT_ON_CLOSE);
@@ -30,7 +37,6 @@ public class ChipFrame extends JFrame implements KeyListener {
 		addKeyListener(this);
 		
 		keyIdToKey = new int[256];
-		keyBuffer = new int[16];
 		fillKeyIds();
 	}
 	
@@ -58,15 +64,21 @@ public class ChipFrame extends JFrame implements KeyListener {
 
 	@Override
 	public void keyPressed(KeyEvent e) {
+		if(e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+			rewinding = true;
+		}
 		if(keyIdToKey[e.getKeyCode()] != -1) {
-			keyBuffer[keyIdToKey[e.getKeyCode()]] = 1;
+			keypad.press(keyIdToKey[e.getKeyCode()]);
 		}
 	}
 
 	@Override
 	public void keyReleased(KeyEvent e) {
+		if(e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+			rewinding = false;
+		}
 		if(keyIdToKey[e.getKeyCode()] != -1) {
-			keyBuffer[keyIdToKey[e.getKeyCode()]] = 0;
+			keypad.release(keyIdToKey[e.getKeyCode()]);
 		}
 	}
 
@@ -74,8 +86,8 @@ public class ChipFrame extends JFrame implements KeyListener {
 	public void keyTyped(KeyEvent e) {	
 	}
 	
-	public int[] getKeyBuffer() {
-		return keyBuffer;
+	public boolean isRewinding() {
+		return rewinding;
 	}
 	
 }
@@ -2,33 +2,81 @@ package emu;
 
 import java.awt.Color;
 import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 
 import javax.swing.JPanel;
 
 import chip.Chip;
 
+/**
+ * Draws the frames of a {@link FrameExchange}, never the live display of the chip<br/>
+ * Only the rows which differ from the last drawn frame are converted to pixels
+ */
 public class ChipPanel extends JPanel {
 	
 	private static final long serialVersionUID = 1L;
-	private Chip chip;
+	/**
+	 * The color per pixel value: bit 0 from the first bit plane, bit 1 from the second
+	 */
+	private static final int[] PALETTE = { Color.BLACK.getRGB(), Color.WHITE.getRGB(), Color.LIGHT_GRAY.getRGB(), Color.DARK_GRAY.getRGB() };
 	
-	public ChipPanel(Chip chip) {
-		this.chip = chip;
+	private FrameExchange exchange;
+	/**
+	 * The amount of screen pixels per low resolution chip pixel
+	 */
+	private int scale;
+	/**
+	 * The display at its native 64x32 and 128x64 size, only the one of the current mode is updated and drawn
+	 */
+	private BufferedImage lowResolutionImage;
+	private BufferedImage highResolutionImage;
+	/**
+	 * The rasters of the images, one RGB int per pixel
+	 */
+	private int[] lowResolutionPixels;
+	private int[] highResolutionPixels;
+	/**
+	 * The frame which was drawn last, rows which still match it are up to date in the image
+	 */
+	private final long[] shownRows = new long[Chip.PLANES * Chip.PLANE_SIZE];
+	private boolean shownHighResolution;
+	
+	public ChipPanel(FrameExchange exchange, int scale) {
+		this.exchange = exchange;
+		this.scale = scale;
+		lowResolutionImage = new BufferedImage(Chip.MAX_WIDTH / 2, Chip.MAX_HEIGHT / 2, BufferedImage.TYPE_INT_RGB);
+		lowResolutionPixels = ((DataBufferInt)lowResolutionImage.getRaster().getDataBuffer()).getData();
+		highResolutionImage = new BufferedImage(Chip.MAX_WIDTH, Chip.MAX_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		highResolutionPixels = ((DataBufferInt)highResolutionImage.getRaster().getDataBuffer()).getData();
 	}
 	
 	public void paint(Graphics g) {
-		byte[] display = chip.getDisplay();
-		for(int i = 0; i < display.length; i++) {
-			if(display[i] == 0)
-				g.setColor(Color.BLACK);
-			else
-				g.setColor(Color.WHITE);
-			
-			int x = (i % 64);
-			int y = (int)Math.floor(i / 64);
+		FrameExchange.Frame frame = exchange.take();
+		boolean highResolution = frame.highResolution;
+		BufferedImage image = highResolution ? highResolutionImage : lowResolutionImage;
+		int[] pixels = highResolution ? highResolutionPixels : lowResolutionPixels;
+		long[] rows = frame.rows;
+		boolean modeChanged = highResolution != shownHighResolution;
+		int width = image.getWidth();
+		for(int y = 0; y < image.getHeight(); y++) {
+			int index = y * 2;
+			int second = Chip.PLANE_SIZE + index;
+			if(!modeChanged && rows[index] == shownRows[index] && rows[index + 1] == shownRows[index + 1]
+					&& rows[second] == shownRows[second] && rows[second + 1] == shownRows[second + 1])
+				continue;
 			
-			g.fillRect(x * 10, y * 10, 10, 10);
+			int offset = y * width;
+			for(int x = 0; x < width; x++) {
+				int column = index + (x >>> 6);
+				int shift = 63 - (x & 63);
+				int value = (int)((rows[column] >>> shift) & 1) | (int)(((rows[Chip.PLANE_SIZE + column] >>> shift) & 1) << 1);
+				pixels[offset + x] = PALETTE[value];
+			}
 		}
+		System.arraycopy(rows, 0, shownRows, 0, rows.length);
+		shownHighResolution = highResolution;
+		g.drawImage(image, 0, 0, 64 * scale, 32 * scale, null);
 	}
 
 }
@@ -0,0 +1,156 @@
+package emu;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import chip.Chip;
+import chip.ExecutionMode;
+import chip.InputMovie;
+import chip.Platform;
+import chip.Quirks;
+import chip.conformance.ChipEngine;
+import chip.conformance.DifferentialHarness;
+import chip.conformance.DifferentialHarness.Divergence;
+import chip.conformance.IEngine;
+import chip.conformance.LockstepMachine;
+
+/**
+ * Checks that two engines run ROMs identically, see {@link DifferentialHarness}<br/>
+ * Without a movie the keys are either untouched or, with -random n, a random key (or none) is held for n frames at a
+ * time. Exits with status 1 if any ROM diverges, so it can run as part of a build<br/>
+ * Usage: ConformanceRunner [-a engine] [-b engine] [-frames n] [-ips n] [-every n] [-platform chip8|superchip|xochip]
+ * [-quirks legacy|cosmac_vip|chip48|superchip|xochip] [-seed n] [-random n | -input script | -movie file] rom...<br/>
+ * Engines are switch, table, block, jit and lockstep, by default switch is compared with block. The states are
+ * compared every -every instructions (rounded up to whole frames). The lockstep engine only runs the legacy quirks
+ */
+public class ConformanceRunner {
+	
+	public static void main(String[] args) throws IOException {
+		String firstEngine = "switch";
+		String secondEngine = "block";
+		int frames = 100_000;
+		int instructionsPerSecond = 600;
+		int every = 1000;
+		Platform platform = Platform.CHIP8;
+		Quirks quirks = Quirks.LEGACY;
+		long seed = 0;
+		int randomInterval = 0;
+		InputScript input = null;
+		InputMovie movie = null;
+		List<String> roms = new ArrayList<>();
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-a")) {
+				firstEngine = args[++i];
+			} else if(args[i].equals("-b")) {
+				secondEngine = args[++i];
+			} else if(args[i].equals("-frames")) {
+				frames = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-ips")) {
+				instructionsPerSecond = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-every")) {
+				every = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-platform")) {
+				platform = Platform.valueOf(args[++i].toUpperCase());
+			} else if(args[i].equals("-quirks")) {
+				quirks = Quirks.valueOf(args[++i].toUpperCase());
+			} else if(args[i].equals("-seed")) {
+				seed = Long.parseLong(args[++i]);
+			} else if(args[i].equals("-random")) {
+				randomInterval = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-input")) {
+				input = InputScript.load(args[++i]);
+			} else if(args[i].equals("-movie")) {
+				try (FileChannel channel = FileChannel.open(Paths.get(args[++i]))) {
+					movie = InputMovie.read(channel);
+				}
+			} else {
+				roms.add(args[i]);
+			}
+		}
+		
+		if(movie == null) {
+			int instructionsPerFrame = Math.max(1, instructionsPerSecond / 60);
+			if(input != null) {
+				int[] changeFrames = new int[input.size()];
+				int[] masks = new int[input.size()];
+				for(int i = 0; i < input.size(); i++) {
+					changeFrames[i] = input.getFrame(i);
+					masks[i] = input.getMask(i);
+				}
+				movie = new InputMovie(seed, instructionsPerFrame, frames, changeFrames, masks);
+			} else {
+				movie = randomMovie(seed, instructionsPerFrame, frames, randomInterval);
+			}
+		}
+		int interval = Math.max(1, (every + movie.getInstructionsPerFrame() - 1) / movie.getInstructionsPerFrame());
+		
+		boolean diverged = false;
+		for(String rom : roms) {
+			Chip template = new Chip();
+			template.init(platform, quirks);
+			template.loadProgram(rom);
+			
+			DifferentialHarness harness = new DifferentialHarness(template, createEngine(firstEngine), createEngine(secondEngine));
+			long startTime = System.nanoTime();
+			Divergence divergence;
+			try {
+				divergence = harness.run(movie, interval);
+			} catch (IllegalStateException e) {
+				System.out.println(rom + ": " + e.getMessage());
+				diverged = true;
+				continue;
+			}
+			long usedTime = System.nanoTime() - startTime;
+			
+			if(divergence == null) {
+				long instructions = (long)movie.getLength() * movie.getInstructionsPerFrame();
+				System.out.println(String.format("%s: %s and %s agree over %,d instructions (%d ms)", rom,
+						firstEngine.toUpperCase(), secondEngine.toUpperCase(), instructions, usedTime / 1_000_000));
+			} else {
+				System.out.println(rom + ": " + harness.describe(divergence, movie.getInstructionsPerFrame()));
+				diverged = true;
+			}
+		}
+		if(diverged) {
+			System.exit(1);
+		}
+	}
+	
+	/**
+	 * Creates a movie which holds a random key, or none, for a fixed amount of frames at a time
+	 * @param seed
+	 * The seed of the chip and of the keys
+	 * @param instructionsPerFrame
+	 * @param frames
+	 * @param interval
+	 * The amount of frames a key is held, 0 to never press a key
+	 * @return
+	 */
+	private static InputMovie randomMovie(long seed, int instructionsPerFrame, int frames, int interval) {
+		if(interval <= 0) {
+			return new InputMovie(seed, instructionsPerFrame, frames, new int[0], new int[0]);
+		}
+		Random random = new Random(seed);
+		int changes = (frames + interval - 1) / interval;
+		int[] changeFrames = new int[changes];
+		int[] masks = new int[changes];
+		for(int i = 0; i < changes; i++) {
+			changeFrames[i] = i * interval;
+			int key = random.nextInt(17);
+			masks[i] = (key == 16) ? 0 : (1 << key);
+		}
+		return new InputMovie(seed, instructionsPerFrame, frames, changeFrames, masks);
+	}
+	
+	private static IEngine createEngine(String name) {
+		if(name.equalsIgnoreCase("lockstep")) {
+			return new LockstepMachine();
+		}
+		return new ChipEngine(ExecutionMode.valueOf(name.toUpperCase()));
+	}
+
+}
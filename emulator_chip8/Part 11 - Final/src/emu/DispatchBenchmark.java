@@ -0,0 +1,85 @@
+package emu;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import chip.Chip;
+import chip.ExecutionMode;
+
+/**
+ * Runs every ROM with every {@link ExecutionMode} and reports the amount of instructions per second<br/>
+ * The modes share the call sites of the chip, so the modes measured first skew the profile the later ones are
+ * compiled with. To compare two modes run each with -mode in its own JVM<br/>
+ * Usage: DispatchBenchmark [-mode switch|table|block|jit] [instructions] [rom...]
+ */
+public class DispatchBenchmark {
+	
+	/**
+	 * Untimed runs before the measurement, so the hot loops are compiled by C2 before it starts
+	 */
+	private static final int WARMUP_RUNS = 4;
+	/**
+	 * Timed runs, the fastest one is reported
+	 */
+	private static final int MEASURED_RUNS = 3;
+	/**
+	 * Opcodes per 60 Hz timer tick (600 instructions per second)
+	 */
+	private static final int INSTRUCTIONS_PER_FRAME = 10;
+	
+	public static void main(String[] args) throws IOException {
+		int instructions = 2000000;
+		String[] roms = { "./invaders.c8", "./pong2.c8", "./tetris.c8" };
+		ExecutionMode[] executionModes = ExecutionMode.values();
+		int first = 0;
+		if(args.length > 1 && args[0].equals("-mode")) {
+			executionModes = new ExecutionMode[] { ExecutionMode.valueOf(args[1].toUpperCase()) };
+			first = 2;
+		}
+		if(args.length > first) {
+			instructions = Integer.parseInt(args[first]);
+		}
+		if(args.length > first + 1) {
+			roms = new String[args.length - first - 1];
+			System.arraycopy(args, first + 1, roms, 0, roms.length);
+		}
+		
+		PrintStream out = System.out;
+		for(String rom : roms) {
+			for(ExecutionMode executionMode : executionModes) {
+				System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+				for(int i = 0; i < WARMUP_RUNS; i++) {
+					run(rom, executionMode, instructions);
+				}
+				long nanos = Long.MAX_VALUE;
+				for(int i = 0; i < MEASURED_RUNS; i++) {
+					nanos = Math.min(nanos, run(rom, executionMode, instructions));
+				}
+				System.setOut(out);
+				
+				double perSecond = instructions / (nanos / 1_000_000_000D);
+				System.out.println(String.format("%-16s %-8s %,15.0f instructions/s", rom, executionMode, perSecond));
+			}
+		}
+	}
+	
+	/**
+	 * Executes a fresh chip for the given amount of instructions
+	 * @return
+	 * The time it took in nanoseconds
+	 */
+	private static long run(String rom, ExecutionMode executionMode, int instructions) throws IOException {
+		Chip chip = new Chip();
+		chip.init();
+		chip.setExecutionMode(executionMode);
+		chip.loadProgram(rom);
+		
+		long startTime = System.nanoTime();
+		while(chip.getInstructionCount() < instructions) {
+			chip.runFrame(INSTRUCTIONS_PER_FRAME);
+		}
+		return System.nanoTime() - startTime;
+	}
+
+}
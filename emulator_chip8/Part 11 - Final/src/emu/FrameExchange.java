@@ -0,0 +1,78 @@
+package emu;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import chip.Chip;
+
+/**
+ * Hands finished frames from the emulation thread to the event dispatch thread without sharing the chip's display<br/>
+ * Three buffers rotate: the emulation thread writes the back buffer, the renderer reads the front buffer and the
+ * third one holds the latest finished frame. Publishing and taking a frame are a single atomic swap each, so the
+ * renderer never sees a half written frame and neither thread ever waits for the other. Frames the renderer didn't
+ * get to are simply replaced by newer ones
+ */
+public class FrameExchange {
+	
+	/**
+	 * Set in {@link #middle} while it holds a frame the renderer hasn't taken yet
+	 */
+	private static final int FRESH = 4;
+	private static final int INDEX_MASK = 3;
+	
+	/**
+	 * A copy of the display
+	 */
+	public static class Frame {
+		
+		/**
+		 * The packed display in the layout of {@link Chip#getDisplayRows()}
+		 */
+		public final long[] rows = new long[Chip.PLANES * Chip.PLANE_SIZE];
+		public boolean highResolution;
+	
+	}
+	
+	private final Frame[] frames = { new Frame(), new Frame(), new Frame() };
+	/**
+	 * The index of the buffer in the middle, combined with {@link #FRESH}
+	 */
+	private final AtomicInteger middle = new AtomicInteger(1);
+	/**
+	 * The buffer owned by the emulation thread
+	 */
+	private int back = 0;
+	/**
+	 * The buffer owned by the renderer
+	 */
+	private int front = 2;
+	
+	/**
+	 * Copies the display of the chip and makes it the latest frame, called on the emulation thread
+	 * @param chip
+	 * @return
+	 * True if the renderer had taken the previous frame, so a repaint has to be requested. False if a repaint is
+	 * already pending, it will show this frame instead
+	 */
+	public boolean publish(Chip chip) {
+		Frame frame = frames[back];
+		System.arraycopy(chip.getDisplayRows(), 0, frame.rows, 0, frame.rows.length);
+		frame.highResolution = chip.isHighResolution();
+		int previous = middle.getAndSet(back | FRESH);
+		back = previous & INDEX_MASK;
+		return (previous & FRESH) == 0;
+	}
+	
+	/**
+	 * Gets the latest frame, called by the renderer<br/>
+	 * The frame stays unchanged until the next call
+	 * @return
+	 * The latest published frame or the one of the last call if there is no newer one
+	 */
+	public Frame take() {
+		if((middle.get() & FRESH) != 0) {
+			front = middle.getAndSet(front) & INDEX_MASK;
+		}
+		return frames[front];
+	}
+
+}
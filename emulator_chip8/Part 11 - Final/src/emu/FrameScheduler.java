@@ -0,0 +1,113 @@
+package emu;
+
+import java.util.concurrent.locks.LockSupport;
+
+import chip.Chip;
+import chip.Keypad;
+
+/**
+ * Drives a chip at a fixed CPU rate in 60 Hz frames<br/>
+ * Every frame runs CPU rate / 60 opcodes and ticks the timers once. Frames are paced against an absolute deadline so an
+ * occasional late frame is caught up instead of slowing the emulation down<br/>
+ * While the chip waits for a key (FX0A) with both timers at 0 the thread is parked until the keypad is pressed
+ */
+public class FrameScheduler {
+	
+	public static final long FRAME_NANOS = 1_000_000_000L / 60;
+	/**
+	 * When running more frames behind than this the backlog is dropped instead of caught up
+	 */
+	private static final int MAX_CATCH_UP_FRAMES = 5;
+	/**
+	 * The longest the thread is parked while the chip waits for a key, keeps the frame listener (rewind) responsive
+	 */
+	private static final long IDLE_PARK_NANOS = 250_000_000L;
+	
+	private final Chip chip;
+	/**
+	 * Called after every frame on the emulation thread
+	 */
+	private final Runnable frameListener;
+	private int instructionsPerFrame;
+	/**
+	 * Runs frames back to back without waiting
+	 */
+	private volatile boolean turbo;
+	private volatile boolean running;
+	
+	/**
+	 * @param chip
+	 * @param instructionsPerSecond
+	 * The CPU rate, usually between 500 and 2000
+	 * @param frameListener
+	 * Called after every frame, may be null
+	 */
+	public FrameScheduler(Chip chip, int instructionsPerSecond, Runnable frameListener) {
+		this.chip = chip;
+		this.frameListener = frameListener;
+		setInstructionsPerSecond(instructionsPerSecond);
+	}
+	
+	/**
+	 * Runs frames on the calling thread until {@link #stop()} is called
+	 */
+	public void run() {
+		running = true;
+		long deadline = System.nanoTime();
+		while(running) {
+			chip.runFrame(instructionsPerFrame);
+			if(frameListener != null) {
+				frameListener.run();
+			}
+			
+			Keypad keypad = chip.getKeypad();
+			if(keypad != null && chip.isIdleUntilKeyPress()) {
+				//Nothing changes until a key is pressed, the skipped frames would all be identical
+				keypad.awaitPress(IDLE_PARK_NANOS);
+				deadline = System.nanoTime();
+				continue;
+			}
+			
+			if(turbo) {
+				deadline = System.nanoTime();
+				continue;
+			}
+			
+			deadline += FRAME_NANOS;
+			long remaining = deadline - System.nanoTime();
+			if(remaining < -(FRAME_NANOS * MAX_CATCH_UP_FRAMES)) {
+				//Too far behind (debugger, suspended machine), don't try to catch up all of it
+				deadline = System.nanoTime();
+			}
+			while(remaining > 0) {
+				LockSupport.parkNanos(remaining);
+				remaining = deadline - System.nanoTime();
+			}
+		}
+	}
+	
+	public void stop() {
+		running = false;
+	}
+	
+	/**
+	 * Sets the CPU rate
+	 * @param instructionsPerSecond
+	 */
+	public void setInstructionsPerSecond(int instructionsPerSecond) {
+		instructionsPerFrame = Math.max(1, instructionsPerSecond / 60);
+	}
+	
+	public int getInstructionsPerFrame() {
+		return instructionsPerFrame;
+	}
+	
+	/**
+	 * Turns uncapped execution on or off
+	 * @param turbo
+	 */
+	public void setTurbo(boolean turbo) {
+		this.turbo = turbo;
+	}
+
+}
@@ -0,0 +1,298 @@
+package emu;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chip.Chip;
+import chip.ExecutionMode;
+import chip.InputMovie;
+import chip.Platform;
+import chip.Quirks;
+import chip.analysis.Disassembler;
+import chip.profile.ProfileReport;
+import chip.profile.Profiler;
+
+/**
+ * Runs ROMs without any window, sound or AWT on all cores<br/>
+ * Every ROM instance gets its own {@link Chip} and runs for a fixed amount of frames, after which a hash of the
+ * display and the instruction count are reported<br/>
+ * Runs are deterministic: every instance uses the same seed, unless an input movie is replayed which brings its own<br/>
+ * Usage: HeadlessRunner [-frames n] [-ips n] [-mode switch|table|block|jit] [-platform chip8|superchip|xochip]
+ * [-quirks legacy|cosmac_vip|chip48|superchip|xochip] [-instances n] [-seed n] [-input script | -movie file] [-profile directory] rom...<br/>
+ * With -profile the hot spots and collapsed call stacks of every instance are written to rom.instance.txt and
+ * rom.instance.collapsed in the directory<br/>
+ * An instance which fails (unloadable ROM, unsupported opcode) is reported without stopping the others, the exit
+ * status is 1 if any instance failed
+ */
+public class HeadlessRunner {
+	
+	/**
+	 * The outcome of a single ROM instance
+	 */
+	public static class Result {
+		
+		public final String rom;
+		public final int instance;
+		public final long displayHash;
+		public final long instructionCount;
+		/**
+		 * Why the instance stopped early, null if it ran all frames
+		 */
+		public final String error;
+		
+		public Result(String rom, int instance, long displayHash, long instructionCount) {
+			this(rom, instance, displayHash, instructionCount, null);
+		}
+		
+		public Result(String rom, int instance, long displayHash, long instructionCount, String error) {
+			this.rom = rom;
+			this.instance = instance;
+			this.displayHash = displayHash;
+			this.instructionCount = instructionCount;
+			this.error = error;
+		}
+		
+		public boolean isFailed() {
+			return error != null;
+		}
+		
+	}
+	
+	private int frames = 600;
+	private int instructionsPerSecond = 600;
+	private ExecutionMode executionMode = ExecutionMode.TABLE;
+	private Platform platform = Platform.CHIP8;
+	private Quirks quirks = Quirks.LEGACY;
+	private InputScript input;
+	private long seed;
+	private Path profileDirectory;
+	
+	/**
+	 * Runs every ROM the given amount of times, spread over a work-stealing pool
+	 * @param roms
+	 * @param instances
+	 * The amount of independent chips per ROM
+	 * @return
+	 * The results in the order of the ROMs and instances
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	public List<Result> runAll(List<String> roms, int instances) throws InterruptedException, ExecutionException {
+		ExecutorService pool = Executors.newWorkStealingPool();
+		try {
+			List<Future<Result>> futures = new ArrayList<>();
+			for(final String rom : roms) {
+				for(int i = 0; i < instances; i++) {
+					final int instance = i;
+					futures.add(pool.submit(() -> run(rom, instance)));
+				}
+			}
+			
+			List<Result> results = new ArrayList<>(futures.size());
+			for(Future<Result> future : futures) {
+				results.add(future.get());
+			}
+			return results;
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	/**
+	 * Runs a single ROM instance on the calling thread
+	 * @param rom
+	 * @param instance
+	 * @return
+	 * The result, a failed one if the ROM couldn't be loaded or the chip stopped with an exception
+	 */
+	public Result run(String rom, int instance) {
+		Chip chip = new Chip();
+		chip.init(platform, quirks);
+		chip.setSeed(seed);
+		chip.setExecutionMode(executionMode);
+		try {
+			chip.loadProgram(rom);
+		} catch (IOException e) {
+			return new Result(rom, instance, 0, 0, e.toString());
+		}
+		if(executionMode == ExecutionMode.BLOCK || executionMode == ExecutionMode.JIT) {
+			chip.predecodeBlocks(Disassembler.analyse(chip).getBlockStarts());
+		}
+		Profiler profiler = null;
+		if(profileDirectory != null) {
+			profiler = new Profiler(chip.getMemorySize());
+			chip.setProfiler(profiler);
+		}
+		
+		int instructionsPerFrame = Math.max(1, instructionsPerSecond / 60);
+		int nextChange = 0;
+		for(int frame = 0; frame < frames; frame++) {
+			if(input != null) {
+				while(nextChange < input.size() && input.getFrame(nextChange) <= frame) {
+					chip.setKeyMask(input.getMask(nextChange));
+					nextChange++;
+				}
+			}
+			try {
+				chip.runFrame(instructionsPerFrame);
+			} catch (RuntimeException e) {
+				return new Result(rom, instance, hashDisplay(chip.getDisplayRows()), chip.getInstructionCount(),
+						"frame " + frame + ": " + e);
+			}
+		}
+		
+		if(profiler != null) {
+			writeProfile(chip, profiler, rom, instance);
+		}
+		return new Result(rom, instance, hashDisplay(chip.getDisplayRows()), chip.getInstructionCount());
+	}
+	
+	/**
+	 * Writes the hot spots and collapsed call stacks of an instance into the profile directory
+	 * @param chip
+	 * @param profiler
+	 * @param rom
+	 * @param instance
+	 */
+	private void writeProfile(Chip chip, Profiler profiler, String rom, int instance) {
+		String name = Paths.get(rom).getFileName() + "." + instance;
+		try (Writer out = Files.newBufferedWriter(profileDirectory.resolve(name + ".txt"))) {
+			ProfileReport.writeHotSpots(profiler, chip, 50, out);
+		} catch (IOException e) {
+			System.err.println("Failed to write profile: " + e.getMessage());
+		}
+		try (Writer out = Files.newBufferedWriter(profileDirectory.resolve(name + ".collapsed"))) {
+			ProfileReport.writeCollapsedStacks(profiler, out);
+		} catch (IOException e) {
+			System.err.println("Failed to write profile: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Hashes the packed display rows (64-bit FNV-1a)
+	 * @param rows
+	 * @return
+	 */
+	public static long hashDisplay(long[] rows) {
+		long hash = 0xCBF29CE484222325L;
+		for(long row : rows) {
+			for(int i = 0; i < 8; i++) {
+				hash ^= (row >>> (56 - (i * 8))) & 0xFF;
+				hash *= 0x100000001B3L;
+			}
+		}
+		return hash;
+	}
+	
+	public void setFrames(int frames) {
+		this.frames = frames;
+	}
+	
+	public void setInstructionsPerSecond(int instructionsPerSecond) {
+		this.instructionsPerSecond = instructionsPerSecond;
+	}
+	
+	public void setExecutionMode(ExecutionMode executionMode) {
+		this.executionMode = executionMode;
+	}
+	
+	public void setPlatform(Platform platform) {
+		this.platform = platform;
+	}
+	
+	public void setQuirks(Quirks quirks) {
+		this.quirks = quirks;
+	}
+	
+	/**
+	 * Profiles every instance, see {@link #writeProfile(Chip, Profiler, String, int)}
+	 * @param profileDirectory
+	 * The directory to write the reports to, null to not profile
+	 */
+	public void setProfileDirectory(Path profileDirectory) {
+		this.profileDirectory = profileDirectory;
+	}
+	
+	public void setInput(InputScript input) {
+		this.input = input;
+	}
+	
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Replays a recorded movie: takes over its seed, CPU rate, length and key changes
+	 * @param movie
+	 */
+	public void setMovie(InputMovie movie) {
+		seed = movie.getSeed();
+		instructionsPerSecond = movie.getInstructionsPerFrame() * 60;
+		frames = movie.getLength();
+		input = new InputScript(movie.getFrames(), movie.getMasks());
+	}
+	
+	public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+		HeadlessRunner runner = new HeadlessRunner();
+		int instances = 1;
+		List<String> roms = new ArrayList<>();
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-frames")) {
+				runner.setFrames(Integer.parseInt(args[++i]));
+			} else if(args[i].equals("-ips")) {
+				runner.setInstructionsPerSecond(Integer.parseInt(args[++i]));
+			} else if(args[i].equals("-mode")) {
+				runner.setExecutionMode(ExecutionMode.valueOf(args[++i].toUpperCase()));
+			} else if(args[i].equals("-platform")) {
+				runner.setPlatform(Platform.valueOf(args[++i].toUpperCase()));
+			} else if(args[i].equals("-quirks")) {
+				runner.setQuirks(Quirks.valueOf(args[++i].toUpperCase()));
+			} else if(args[i].equals("-instances")) {
+				instances = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-input")) {
+				runner.setInput(InputScript.load(args[++i]));
+			} else if(args[i].equals("-seed")) {
+				runner.setSeed(Long.parseLong(args[++i]));
+			} else if(args[i].equals("-profile")) {
+				runner.setProfileDirectory(Paths.get(args[++i]));
+			} else if(args[i].equals("-movie")) {
+				try (FileChannel channel = FileChannel.open(Paths.get(args[++i]))) {
+					runner.setMovie(InputMovie.read(channel));
+				}
+			} else {
+				roms.add(args[i]);
+			}
+		}
+		
+		long startTime = System.nanoTime();
+		List<Result> results = runner.runAll(roms, instances);
+		long usedTime = System.nanoTime() - startTime;
+		
+		long totalInstructions = 0;
+		int failed = 0;
+		for(Result result : results) {
+			System.out.println(String.format("%s #%d display=%016X instructions=%d", result.rom, result.instance, result.displayHash, result.instructionCount));
+			if(result.isFailed()) {
+				System.out.println(String.format("%s #%d FAILED: %s", result.rom, result.instance, result.error));
+				failed++;
+			}
+			totalInstructions += result.instructionCount;
+		}
+		System.out.println(String.format("%d instances, %,d instructions in %d ms", results.size(), totalInstructions, usedTime / 1_000_000));
+		if(failed > 0) {
+			System.out.println(failed + " of " + results.size() + " instances failed");
+			System.exit(1);
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package emu;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of key states which should be applied at specific frames<br/>
+ * The text format has one change per line: the frame number followed by a hexadecimal 16-bit key mask (bit n = key n)<br/>
+ * Lines starting with # are ignored
+ */
+public class InputScript {
+	
+	/**
+	 * The frames at which the keys change, ascending
+	 */
+	private final int[] frames;
+	/**
+	 * The key mask which starts at the matching frame
+	 */
+	private final int[] masks;
+	
+	public InputScript(int[] frames, int[] masks) {
+		this.frames = frames;
+		this.masks = masks;
+	}
+	
+	/**
+	 * Reads a script file
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static InputScript load(String file) throws IOException {
+		List<int[]> changes = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line;
+			while((line = reader.readLine()) != null) {
+				line = line.trim();
+				if(line.isEmpty() || line.startsWith("#"))
+					continue;
+				
+				String[] parts = line.split("\\s+");
+				changes.add(new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1], 16) & 0xFFFF });
+			}
+		}
+		
+		changes.sort((a, b) -> Integer.compare(a[0], b[0]));
+		int[] frames = new int[changes.size()];
+		int[] masks = new int[changes.size()];
+		for(int i = 0; i < frames.length; i++) {
+			frames[i] = changes.get(i)[0];
+			masks[i] = changes.get(i)[1];
+		}
+		return new InputScript(frames, masks);
+	}
+	
+	/**
+	 * Gets the amount of key changes
+	 * @return
+	 */
+	public int size() {
+		return frames.length;
+	}
+	
+	public int getFrame(int index) {
+		return frames[index];
+	}
+	
+	public int getMask(int index) {
+		return masks[index];
+	}
+
+}
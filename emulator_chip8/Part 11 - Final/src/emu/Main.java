@@ -1,38 +1,197 @@
 package emu;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import javax.sound.sampled.LineUnavailableException;
+
+import chip.Audio;
 import chip.Chip;
+import chip.ExecutionMode;
+import chip.InputRecorder;
+import chip.Keypad;
+import chip.Platform;
+import chip.Quirks;
+import chip.RewindBuffer;
+import chip.analysis.Disassembler;
+import chip.profile.ProfileReport;
+import chip.profile.Profiler;
+import chip.trace.TraceBuffer;
+import chip.trace.TraceDecoder;
 
 public class Main extends Thread {
 	
 	private Chip chip8;
 	private ChipFrame frame;
+	/**
+	 * Passes the finished frames to the window
+	 */
+	private FrameExchange frameExchange;
+	private FrameScheduler scheduler;
+	private RewindBuffer rewindBuffer;
 	
-	public Main() {
+	public Main(Platform platform, Quirks quirks, ExecutionMode executionMode, int scale, int instructionsPerSecond) throws IOException {
 		chip8 = new Chip();
-		chip8.init();
+		chip8.init(platform, quirks);
+		chip8.setExecutionMode(executionMode);
 		chip8.loadProgram("./invaders.c8");
-		frame = new ChipFrame(chip8);
+		if(executionMode == ExecutionMode.BLOCK || executionMode == ExecutionMode.JIT) {
+			chip8.predecodeBlocks(Disassembler.analyse(chip8).getBlockStarts());
+		}
+		
+		Audio audio = new Audio();
+		try {
+			audio.start();
+			chip8.setAudio(audio);
+		} catch (LineUnavailableException e) {
+			System.err.println("Failed to open audio line: " + e.getMessage());
+		}
+		
+		Keypad keypad = new Keypad();
+		chip8.setKeypad(keypad);
+		frameExchange = new FrameExchange();
+		frame = new ChipFrame(frameExchange, keypad, scale);
+		rewindBuffer = new RewindBuffer(chip8.getStateSize());
+		scheduler = new FrameScheduler(chip8, instructionsPerSecond, new Runnable() {
+			public void run() {
+				if(frame.isRewinding()) {
+					//Replace the frame which just ran with the previously captured one
+					rewindBuffer.rewind(chip8);
+				} else {
+					rewindBuffer.capture(chip8);
+				}
+				if(chip8.needsRedraw()) {
+					//Only the first frame since the last paint requests one, the paint then shows the latest
+					if(frameExchange.publish(chip8)) {
+						frame.repaint();
+					}
+					chip8.removeDrawFlag();
+				}
+			}
+		});
 	}
 	
 	public void run() {
-		//60 hz, 60 updates per second
-		while(true) {
-			chip8.setKeyBuffer(frame.getKeyBuffer());
-			chip8.run();
-			if(chip8.needsRedraw()) {
-				frame.repaint();
-				chip8.removeDrawFlag();
+		scheduler.run();
+	}
+	
+	/**
+	 * Records the last opcodes and prints them when the emulator is closed
+	 * @param capacity
+	 * The amount of opcodes to keep
+	 */
+	public void enableTrace(int capacity) {
+		final TraceBuffer trace = new TraceBuffer(capacity);
+		chip8.setTraceBuffer(trace);
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				try {
+					TraceDecoder.decode(trace, System.out);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Counts every executed opcode and writes the hot spots (prefix.txt) and the call stacks for a flame graph
+	 * (prefix.collapsed) when the emulator is closed
+	 * @param prefix
+	 */
+	public void enableProfile(final String prefix) {
+		final Profiler profiler = new Profiler(chip8.getMemorySize());
+		chip8.setProfiler(profiler);
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				try (Writer out = Files.newBufferedWriter(Paths.get(prefix + ".txt"))) {
+					ProfileReport.writeHotSpots(profiler, chip8, 50, out);
+				} catch (IOException e) {
+					System.err.println("Failed to write profile: " + e.getMessage());
+				}
+				try (Writer out = Files.newBufferedWriter(Paths.get(prefix + ".collapsed"))) {
+					ProfileReport.writeCollapsedStacks(profiler, out);
+				} catch (IOException e) {
+					System.err.println("Failed to write profile: " + e.getMessage());
+				}
 			}
-			try {
-				Thread.sleep(16);
-			} catch (InterruptedException e) {
-				//Unthrown exception
+		});
+	}
+	
+	/**
+	 * Records the seed and every key change and writes them as an {@link chip.InputMovie} when the emulator is closed
+	 * @param file
+	 */
+	public void enableRecording(final String file) {
+		long seed = System.nanoTime();
+		chip8.setSeed(seed);
+		final InputRecorder recorder = new InputRecorder(seed, scheduler.getInstructionsPerFrame());
+		chip8.setInputRecorder(recorder);
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					recorder.toMovie(chip8.getFrameCount()).write(channel);
+				} catch (IOException e) {
+					System.err.println("Failed to write input movie: " + e.getMessage());
+				}
 			}
-		}
+		});
 	}
 	
-	public static void main(String[] args) {
-		Main main = new Main();
+	/**
+	 * Usage: Main [-platform chip8|superchip|xochip] [-quirks legacy|cosmac_vip|chip48|superchip|xochip]
+	 * [-mode switch|table|block|jit] [-scale pixels] [-ips instructions per second] [-turbo] [-trace] [-record movie]
+	 * [-profile prefix]
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		Platform platform = Platform.CHIP8;
+		Quirks quirks = Quirks.LEGACY;
+		ExecutionMode executionMode = ExecutionMode.SWITCH;
+		int scale = 10;
+		int instructionsPerSecond = 600;
+		boolean turbo = false;
+		boolean trace = false;
+		String record = null;
+		String profile = null;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-platform")) {
+				platform = Platform.valueOf(args[++i].toUpperCase());
+			} else if(args[i].equals("-quirks")) {
+				quirks = Quirks.valueOf(args[++i].toUpperCase());
+			} else if(args[i].equals("-mode")) {
+				executionMode = ExecutionMode.valueOf(args[++i].toUpperCase());
+			} else if(args[i].equals("-scale")) {
+				scale = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-ips")) {
+				instructionsPerSecond = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-turbo")) {
+				turbo = true;
+			} else if(args[i].equals("-trace")) {
+				trace = true;
+			} else if(args[i].equals("-record")) {
+				record = args[++i];
+			} else if(args[i].equals("-profile")) {
+				profile = args[++i];
+			}
+		}
+		
+		Main main = new Main(platform, quirks, executionMode, scale, instructionsPerSecond);
+		main.scheduler.setTurbo(turbo);
+		if(trace) {
+			main.enableTrace(4096);
+		}
+		if(record != null) {
+			main.enableRecording(record);
+		}
+		if(profile != null) {
+			main.enableProfile(profile);
+		}
 		main.start();
 	}
 
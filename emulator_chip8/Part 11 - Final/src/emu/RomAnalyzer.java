@@ -0,0 +1,45 @@
+package emu;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import chip.Platform;
+import chip.analysis.ControlFlowGraph;
+import chip.analysis.Disassembler;
+
+/**
+ * Disassembles a ROM without running it and prints its blocks, optionally writing the control flow graph as DOT<br/>
+ * Usage: RomAnalyzer [-platform chip8|superchip|xochip] [-dot file] rom
+ */
+public class RomAnalyzer {
+	
+	public static void main(String[] args) throws IOException {
+		Platform platform = Platform.CHIP8;
+		String dot = null;
+		String rom = null;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-platform")) {
+				platform = Platform.valueOf(args[++i].toUpperCase());
+			} else if(args[i].equals("-dot")) {
+				dot = args[++i];
+			} else {
+				rom = args[i];
+			}
+		}
+		if(rom == null) {
+			System.err.println("Usage: RomAnalyzer [-platform chip8|superchip|xochip] [-dot file] rom");
+			return;
+		}
+		
+		ControlFlowGraph graph = Disassembler.analyse(rom, platform);
+		graph.writeText(System.out);
+		if(dot != null) {
+			try (Writer out = Files.newBufferedWriter(Paths.get(dot))) {
+				graph.writeDot(out);
+			}
+		}
+	}
+
+}
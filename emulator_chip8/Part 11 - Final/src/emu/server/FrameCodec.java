@@ -0,0 +1,112 @@
+package emu.server;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The wire format of the {@link FrameServer}, all values are big endian<br/>
+ * Server to client, once per frame in which the display changed:<br/>
+ * - {@link #FRAME}, mode (bit 0: 128x64 high resolution), frame number (int), payload length (unsigned short)<br/>
+ * - The payload: the packed display ({@link chip.Chip#getDisplayRows()}) XORed with the display of the previous
+ * frame message, run length encoded per long. A token byte with the high bit set is a run of (token & 0x7F) + 1
+ * unchanged longs, otherwise (token + 1) literal longs follow<br/>
+ * Client to server: {@link #KEYS} followed by the key mask (unsigned short), bit n is set while key n is pressed<br/>
+ * The first frame message of a connection is a delta against an empty display
+ */
+public class FrameCodec {
+	
+	public static final byte FRAME = 1;
+	public static final byte KEYS = 2;
+	
+	public static final int FRAME_HEADER_SIZE = 8;
+	public static final int KEYS_SIZE = 3;
+	/**
+	 * The maximum amount of longs a single token covers
+	 */
+	private static final int MAX_RUN = 128;
+	
+	/**
+	 * Gets the largest possible frame message for a display: every long literal plus a token per {@link #MAX_RUN}
+	 * @param displayLength
+	 * The amount of longs in the display
+	 * @return
+	 */
+	public static int getMaxFrameSize(int displayLength) {
+		return FRAME_HEADER_SIZE + (displayLength * 8) + displayLength;
+	}
+	
+	/**
+	 * Writes a frame message with the changes between the displays and updates the previous display
+	 * @param display
+	 * The display of the current frame
+	 * @param previous
+	 * The display the client has, receives a copy of the current display
+	 * @param highResolution
+	 * @param frame
+	 * The frame number
+	 * @param out
+	 * Receives the message, has to have {@link #getMaxFrameSize(int)} bytes remaining
+	 * @return
+	 * If anything changed, a message without changes doesn't have to be sent
+	 */
+	public static boolean encode(long[] display, long[] previous, boolean highResolution, int frame, ByteBuffer out) {
+		int start = out.position();
+		out.put(FRAME);
+		out.put((byte)(highResolution ? 1 : 0));
+		out.putInt(frame);
+		out.putShort((short)0);
+		
+		boolean changed = false;
+		int i = 0;
+		while(i < display.length) {
+			int run = 0;
+			while(i + run < display.length && run < MAX_RUN && display[i + run] == previous[i + run]) {
+				run++;
+			}
+			if(run > 0) {
+				out.put((byte)(0x80 | (run - 1)));
+				i += run;
+				continue;
+			}
+			
+			//Literal longs until the next unchanged one
+			int literals = 0;
+			while(i + literals < display.length && literals < MAX_RUN && display[i + literals] != previous[i + literals]) {
+				literals++;
+			}
+			out.put((byte)(literals - 1));
+			for(int end = i + literals; i < end; i++) {
+				out.putLong(display[i] ^ previous[i]);
+				previous[i] = display[i];
+			}
+			changed = true;
+		}
+		
+		out.putShort(start + 6, (short)(out.position() - start - FRAME_HEADER_SIZE));
+		return changed;
+	}
+	
+	/**
+	 * Applies the payload of a frame message onto a display
+	 * @param payload
+	 * The payload, positioned after the header
+	 * @param length
+	 * The payload length from the header
+	 * @param display
+	 * The display of the previous frame message, receives the new display
+	 */
+	public static void decode(ByteBuffer payload, int length, long[] display) {
+		int end = payload.position() + length;
+		int i = 0;
+		while(payload.position() < end) {
+			int token = payload.get() & 0xFF;
+			if((token & 0x80) != 0) {
+				i += (token & 0x7F) + 1;
+			} else {
+				for(int literals = token + 1; literals > 0; literals--) {
+					display[i++] ^= payload.getLong();
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,299 @@
+package emu.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import chip.Chip;
+import chip.ExecutionMode;
+import chip.Platform;
+import chip.Quirks;
+
+/**
+ * Hosts a Chip 8 session for every TCP connection, see {@link FrameCodec} for the protocol<br/>
+ * A single selector thread accepts connections and reads the keys of all sessions. A clock ticks 60 times per second
+ * and runs a frame of every session on a fork/join pool, each session sends its own frame right after running it.
+ * The sessions run with the switch interpreter, so a session only holds the chip state and two display sized
+ * buffers<br/>
+ * Usage: FrameServer [-port n] [-ips n] [-platform chip8|superchip|xochip]
+ * [-quirks legacy|cosmac_vip|chip48|superchip|xochip] [-threads n] rom
+ */
+public class FrameServer {
+	
+	public static final int DEFAULT_PORT = 8064;
+	/**
+	 * The amount of sessions run by a single task
+	 */
+	private static final int SLICE_SIZE = 64;
+	
+	private final Platform platform;
+	private final Quirks quirks;
+	private final int instructionsPerFrame;
+	/**
+	 * The state of a chip with the ROM loaded, every session starts from a copy
+	 */
+	private final ByteBuffer initialState;
+	
+	private final Selector selector;
+	private final ServerSocketChannel serverChannel;
+	private final ForkJoinPool pool;
+	private final ScheduledExecutorService clock;
+	private final TickTask tickTask;
+	
+	/**
+	 * The connected sessions, replaced as a whole on every change so the clock can run a snapshot
+	 */
+	private volatile Session[] sessions = new Session[0];
+	private SliceTask[] slices = new SliceTask[0];
+	
+	/**
+	 * Runs a frame of a single slice of the sessions
+	 */
+	private class SliceTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		private Session[] snapshot;
+		private int from;
+		private int to;
+		
+		@Override
+		protected void compute() {
+			for(int i = from; i < to; i++) {
+				snapshot[i].tick(instructionsPerFrame);
+			}
+		}
+	
+	}
+	
+	/**
+	 * Runs a frame of every session and waits for them
+	 */
+	private class TickTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected void compute() {
+			Session[] snapshot = sessions;
+			int count = (snapshot.length + SLICE_SIZE - 1) / SLICE_SIZE;
+			if(slices.length < count) {
+				slices = Arrays.copyOf(slices, count);
+				for(int i = 0; i < count; i++) {
+					if(slices[i] == null) {
+						slices[i] = new SliceTask();
+					}
+				}
+			}
+			for(int i = 0; i < count; i++) {
+				SliceTask slice = slices[i];
+				slice.reinitialize();
+				slice.snapshot = snapshot;
+				slice.from = i * SLICE_SIZE;
+				slice.to = Math.min(snapshot.length, (i + 1) * SLICE_SIZE);
+			}
+			invokeAll(Arrays.asList(slices).subList(0, count));
+			for(int i = 0; i < count; i++) {
+				slices[i].snapshot = null;
+			}
+		}
+	
+	}
+	
+	/**
+	 * Opens the server socket, no session is run until {@link #run()}
+	 * @param file
+	 * The ROM every session plays
+	 * @param platform
+	 * @param quirks
+	 * @param port
+	 * @param instructionsPerSecond
+	 * At least one opcode is run per frame
+	 * @param threads
+	 * The amount of threads which run the frames
+	 * @throws IOException
+	 */
+	public FrameServer(String file, Platform platform, Quirks quirks, int port, int instructionsPerSecond, int threads) throws IOException {
+		this.platform = platform;
+		this.quirks = quirks;
+		instructionsPerFrame = Math.max(1, instructionsPerSecond / 60);
+		
+		Chip chip = new Chip();
+		chip.init(platform, quirks);
+		chip.loadProgram(file);
+		ByteBuffer state = ByteBuffer.allocate(chip.getStateSize());
+		chip.saveState(state);
+		state.flip();
+		initialState = state.asReadOnlyBuffer();
+		
+		selector = Selector.open();
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(port), 1024);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		pool = new ForkJoinPool(threads);
+		clock = Executors.newSingleThreadScheduledExecutor();
+		tickTask = new TickTask();
+	}
+	
+	/**
+	 * Starts the clock and serves connections until the selector is closed
+	 * @throws IOException
+	 */
+	public void run() throws IOException {
+		clock.scheduleAtFixedRate(this::tick, 0, 1_000_000_000L / 60, TimeUnit.NANOSECONDS);
+		try {
+			while(selector.isOpen()) {
+				selector.select();
+				Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+				while(keys.hasNext()) {
+					SelectionKey key = keys.next();
+					keys.remove();
+					if(!key.isValid()) {
+						continue;
+					}
+					if(key.isAcceptable()) {
+						accept();
+					} else if(key.isReadable()) {
+						Session session = (Session)key.attachment();
+						try {
+							if(!session.read()) {
+								session.close();
+							}
+						} catch (IOException e) {
+							session.close();
+						}
+					}
+				}
+			}
+		} finally {
+			clock.shutdownNow();
+			pool.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Runs a frame of every session, called by the clock
+	 */
+	private void tick() {
+		tickTask.reinitialize();
+		try {
+			pool.invoke(tickTask);
+		} catch (RuntimeException e) {
+			//The clock stops for good when a tick throws, so a failure must never leave this method
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Starts a session for every pending connection
+	 * @throws IOException
+	 */
+	private void accept() throws IOException {
+		SocketChannel channel;
+		while((channel = serverChannel.accept()) != null) {
+			channel.configureBlocking(false);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			
+			Chip chip = new Chip();
+			chip.init(platform, quirks);
+			chip.setExecutionMode(ExecutionMode.SWITCH);
+			ByteBuffer state = initialState.duplicate();
+			chip.loadState(state);
+			chip.setSeed(System.nanoTime());
+			
+			Session session = new Session(this, channel, chip);
+			channel.register(selector, SelectionKey.OP_READ, session);
+			add(session);
+		}
+	}
+	
+	private synchronized void add(Session session) {
+		Session[] current = sessions;
+		Session[] updated = Arrays.copyOf(current, current.length + 1);
+		updated[current.length] = session;
+		sessions = updated;
+	}
+	
+	/**
+	 * Stops running a session, called by {@link Session#close()}
+	 * @param session
+	 */
+	synchronized void remove(Session session) {
+		Session[] current = sessions;
+		for(int i = 0; i < current.length; i++) {
+			if(current[i] == session) {
+				Session[] updated = new Session[current.length - 1];
+				System.arraycopy(current, 0, updated, 0, i);
+				System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+				sessions = updated;
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the amount of connected sessions
+	 * @return
+	 */
+	public int getSessionCount() {
+		return sessions.length;
+	}
+	
+	/**
+	 * Stops accepting connections and disconnects every session
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		for(Session session : sessions) {
+			session.close();
+		}
+		serverChannel.close();
+		selector.close();
+	}
+	
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		int instructionsPerSecond = 600;
+		Platform platform = Platform.CHIP8;
+		Quirks quirks = Quirks.LEGACY;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String rom = null;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-port")) {
+				port = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-ips")) {
+				instructionsPerSecond = Integer.parseInt(args[++i]);
+			} else if(args[i].equals("-platform")) {
+				platform = Platform.valueOf(args[++i].toUpperCase());
+			} else if(args[i].equals("-quirks")) {
+				quirks = Quirks.valueOf(args[++i].toUpperCase());
+			} else if(args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else {
+				rom = args[i];
+			}
+		}
+		if(rom == null) {
+			System.err.println("Usage: FrameServer [-port n] [-ips n] [-platform chip8|superchip|xochip] "
+					+ "[-quirks legacy|cosmac_vip|chip48|superchip|xochip] [-threads n] rom");
+			return;
+		}
+		
+		FrameServer server = new FrameServer(rom, platform, quirks, port, instructionsPerSecond, threads);
+		System.out.println("Serving " + rom + " on port " + port);
+		server.run();
+	}
+
+}
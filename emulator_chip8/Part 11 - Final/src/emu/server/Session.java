@@ -0,0 +1,146 @@
+package emu.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import chip.Chip;
+
+/**
+ * A single remote player: a {@link Chip} and the connection it is streamed over<br/>
+ * Keys are read on the selector thread of the {@link FrameServer}, frames are run and sent by its frame pool.
+ * When the client doesn't keep up, frames are skipped until the socket accepts the previous one again. The next
+ * delta is taken against the display the client has, so it always catches up with a single message
+ */
+public class Session {
+	
+	private final FrameServer server;
+	private final SocketChannel channel;
+	private final Chip chip;
+	
+	/**
+	 * The display as the client has it
+	 */
+	private final long[] sent;
+	private final ByteBuffer input;
+	private final ByteBuffer output;
+	
+	/**
+	 * The keys of the last {@link FrameCodec#KEYS} message, written by the selector thread
+	 */
+	private volatile int keyMask;
+	private volatile boolean closed;
+	private boolean highResolution;
+	
+	public Session(FrameServer server, SocketChannel channel, Chip chip) {
+		this.server = server;
+		this.channel = channel;
+		this.chip = chip;
+		long[] display = chip.getDisplayRows();
+		sent = new long[display.length];
+		input = ByteBuffer.allocate(FrameCodec.KEYS_SIZE * 16);
+		output = ByteBuffer.allocate(FrameCodec.getMaxFrameSize(display.length));
+		output.flip();
+	}
+	
+	/**
+	 * Runs a frame and sends the changes to the client, called by the frame pool
+	 * @param instructions
+	 * The amount of opcodes per frame
+	 */
+	public void tick(int instructions) {
+		if(closed) {
+			return;
+		}
+		chip.setKeyMask(keyMask);
+		try {
+			chip.runFrame(instructions);
+		} catch (RuntimeException e) {
+			//A broken program (unsupported opcode, stack overflow) only ends its own session
+			System.err.println("Closing session " + channel + ": " + e.getMessage());
+			close();
+			return;
+		}
+		
+		try {
+			if(!flush()) {
+				//The client is behind, the changes go out with the next frame it can take
+				return;
+			}
+			boolean modeChanged = chip.isHighResolution() != highResolution;
+			if(chip.pollDirtyRows() == 0 && !modeChanged) {
+				return;
+			}
+			highResolution = chip.isHighResolution();
+			output.clear();
+			boolean changed = FrameCodec.encode(chip.getDisplayRows(), sent, highResolution, (int)chip.getFrameCount(), output);
+			output.flip();
+			if(changed || modeChanged) {
+				flush();
+			} else {
+				output.limit(0);
+			}
+		} catch (IOException e) {
+			close();
+		}
+	}
+	
+	/**
+	 * Writes as much of the pending frame message as the socket accepts
+	 * @return
+	 * If the whole message has been written
+	 * @throws IOException
+	 */
+	private boolean flush() throws IOException {
+		if(output.hasRemaining()) {
+			channel.write(output);
+		}
+		return !output.hasRemaining();
+	}
+	
+	/**
+	 * Reads the available key messages, called by the selector thread
+	 * @return
+	 * false if the client disconnected or sent something invalid
+	 * @throws IOException
+	 */
+	public boolean read() throws IOException {
+		if(channel.read(input) == -1) {
+			return false;
+		}
+		input.flip();
+		while(input.remaining() >= FrameCodec.KEYS_SIZE) {
+			if(input.get() != FrameCodec.KEYS) {
+				return false;
+			}
+			keyMask = input.getShort() & 0xFFFF;
+		}
+		input.compact();
+		return true;
+	}
+	
+	/**
+	 * Disconnects the client and stops running the chip, can be called more than once
+	 */
+	public void close() {
+		if(closed) {
+			return;
+		}
+		closed = true;
+		try {
+			channel.close();
+		} catch (IOException e) {
+			//Nothing left to clean up
+		}
+		server.remove(this);
+	}
+	
+	public boolean isClosed() {
+		return closed;
+	}
+	
+	public Chip getChip() {
+		return chip;
+	}
+
+}
@@ -0,0 +1,53 @@
+package bench;
+
+import java.util.Map;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all benchmarks with the GC profiler and lists the bytes allocated per operation<br/>
+ * Executing opcodes should not allocate, anything above 0 is reported as such<br/>
+ * Usage: java -cp target/benchmarks.jar bench.AllocationProfile [benchmark regex]
+ */
+public class AllocationProfile {
+	
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : "bench\\..*Benchmark")
+				.addProfiler(GCProfiler.class)
+				.warmupIterations(3)
+				.measurementIterations(3)
+				.forks(1)
+				.build();
+		
+		int allocating = 0;
+		System.out.println();
+		for(RunResult result : new Runner(options).run()) {
+			for(Map.Entry<String, Result> entry : result.getSecondaryResults().entrySet()) {
+				if(!entry.getKey().endsWith("gc.alloc.rate.norm")) {
+					continue;
+				}
+				
+				double bytes = entry.getValue().getScore();
+				String name = result.getParams().getBenchmark();
+				for(String key : result.getParams().getParamsKeys()) {
+					name += " " + key + "=" + result.getParams().getParam(key);
+				}
+				//Anything below a byte per operation is noise from the harness itself
+				boolean allocates = bytes >= 1;
+				if(allocates) {
+					allocating++;
+				}
+				System.out.println(String.format("%-80s %10.2f B/op%s", name, bytes, allocates ? "  <- allocates" : ""));
+			}
+		}
+		System.out.println(allocating + " benchmark(s) allocate");
+	}
+
+}
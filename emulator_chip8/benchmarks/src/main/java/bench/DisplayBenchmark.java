@@ -0,0 +1,87 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chip.Chip;
+import chip.Platform;
+import chip.opcode.IOpcode;
+import chip.opcode.OpcodeTable;
+
+/**
+ * Measures the display opcodes DXYN, DXY0 and 00E0 in the low and high resolution mode<br/>
+ * The sprites are drawn across the boundary of the two longs of a high resolution row
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DisplayBenchmark {
+	
+	@Param({ "false", "true" })
+	public boolean highResolution;
+	
+	private final IOpcode draw = OpcodeTable.decode(0xD01F);
+	private final IOpcode drawWide = OpcodeTable.decode(0xD010);
+	private final IOpcode clear = OpcodeTable.decode(0x00E0);
+	
+	private Chip chip;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		chip = new Chip();
+		chip.init(Platform.SUPERCHIP);
+		chip.setHighResolution(highResolution);
+		chip.setRegister(0x0, 60);
+		chip.setRegister(0x1, 20);
+	}
+	
+	/**
+	 * DXYN: a 8x15 sprite
+	 * @return
+	 * The collision flag
+	 */
+	@Benchmark
+	public int drawSprite() {
+		chip.setIndex(0x50);
+		draw.execute(chip);
+		return chip.getRegister(0xF);
+	}
+	
+	/**
+	 * DXY0: a 16x16 sprite
+	 * @return
+	 * The collision flag
+	 */
+	@Benchmark
+	public int drawWideSprite() {
+		chip.setIndex(0x50);
+		drawWide.execute(chip);
+		return chip.getRegister(0xF);
+	}
+	
+	/**
+	 * 00E0
+	 * @return
+	 */
+	@Benchmark
+	public long clearScreen() {
+		clear.execute(chip);
+		return chip.getDisplayRows()[0];
+	}
+
+}
@@ -0,0 +1,71 @@
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chip.Chip;
+import chip.ExecutionMode;
+import chip.lockstep.LockstepEngine;
+
+/**
+ * Compares a frame of many machines in a {@link LockstepEngine} with the same frame on as many {@link Chip}s<br/>
+ * One operation is a frame of every machine, {@link ThroughputBenchmark#INSTRUCTIONS_PER_FRAME} opcodes each<br/>
+ * Usage: java -jar target/benchmarks.jar LockstepBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class LockstepBenchmark {
+	
+	@Param({ "invaders.c8", "pong2.c8", "tetris.c8" })
+	public String rom;
+	
+	@Param({ "64", "4096" })
+	public int machines;
+	
+	private LockstepEngine engine;
+	private Chip[] chips;
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Roms.suppressOutput();
+		Chip template = Roms.load(rom, ExecutionMode.SWITCH);
+		engine = new LockstepEngine(machines);
+		engine.load(template);
+		chips = new Chip[machines];
+		for(int i = 0; i < machines; i++) {
+			engine.setSeed(i, i);
+			chips[i] = Roms.load(rom, ExecutionMode.SWITCH);
+			chips[i].setSeed(i);
+		}
+	}
+	
+	@Benchmark
+	public void lockstep() {
+		engine.runFrame(ThroughputBenchmark.INSTRUCTIONS_PER_FRAME);
+	}
+	
+	@Benchmark
+	public void chips() {
+		for(int i = 0; i < chips.length; i++) {
+			chips[i].runFrame(ThroughputBenchmark.INSTRUCTIONS_PER_FRAME);
+		}
+	}
+
+}
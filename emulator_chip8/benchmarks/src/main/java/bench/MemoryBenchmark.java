@@ -0,0 +1,82 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chip.Chip;
+import chip.opcode.IOpcode;
+import chip.opcode.OpcodeTable;
+
+/**
+ * Measures the opcodes which write (and so invalidate compiled blocks) or bulk read the memory: FX33, FX55 and FX65
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MemoryBenchmark {
+	
+	private static final int ADDRESS = 0x300;
+	
+	private final IOpcode storeBCD = OpcodeTable.decode(0xF033);
+	private final IOpcode storeRegisters = OpcodeTable.decode(0xFF55);
+	private final IOpcode loadRegisters = OpcodeTable.decode(0xFF65);
+	
+	private Chip chip;
+	
+	@Setup(Level.Trial)
+	public void setUp() {
+		chip = new Chip();
+		chip.init();
+		for(int i = 0; i < 16; i++) {
+			chip.setRegister(i, 0x11 * i);
+		}
+	}
+	
+	/**
+	 * FX33
+	 * @return
+	 */
+	@Benchmark
+	public int storeBCD() {
+		chip.setIndex(ADDRESS);
+		storeBCD.execute(chip);
+		return chip.readMemory(ADDRESS + 2);
+	}
+	
+	/**
+	 * FX55 with all 16 registers
+	 * @return
+	 */
+	@Benchmark
+	public int storeRegisters() {
+		chip.setIndex(ADDRESS);
+		storeRegisters.execute(chip);
+		return chip.readMemory(ADDRESS + 15);
+	}
+	
+	/**
+	 * FX65 with all 16 registers
+	 * @return
+	 */
+	@Benchmark
+	public int loadRegisters() {
+		chip.setIndex(ADDRESS);
+		loadRegisters.execute(chip);
+		return chip.getRegister(0xF);
+	}
+
+}
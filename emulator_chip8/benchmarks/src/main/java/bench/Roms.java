@@ -0,0 +1,52 @@
+package bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import chip.Chip;
+import chip.ExecutionMode;
+
+/**
+ * Loads the bundled ROMs, which are packaged from <code>emulator_chip8/programs</code>
+ */
+public class Roms {
+	
+	/**
+	 * Creates a chip with the ROM loaded
+	 * @param rom
+	 * The file name of the ROM, for example invaders.c8
+	 * @param executionMode
+	 * @return
+	 * @throws IOException
+	 */
+	public static Chip load(String rom, ExecutionMode executionMode) throws IOException {
+		Path file = Files.createTempFile("chip8-", "-" + rom);
+		try (InputStream input = Roms.class.getResourceAsStream("/programs/" + rom)) {
+			if(input == null) {
+				throw new IOException("Unknown ROM " + rom);
+			}
+			Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		
+		Chip chip = new Chip();
+		chip.init();
+		chip.setSeed(0);
+		chip.setExecutionMode(executionMode);
+		chip.loadProgram(file.toString());
+		Files.delete(file);
+		return chip;
+	}
+	
+	/**
+	 * Drops everything written to System.out so printing never ends up in the measurements
+	 */
+	public static void suppressOutput() {
+		System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+	}
+
+}
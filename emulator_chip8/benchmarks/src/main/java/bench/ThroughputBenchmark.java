@@ -0,0 +1,83 @@
+package bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chip.Chip;
+import chip.ExecutionMode;
+
+/**
+ * Measures {@link Chip#run()} on the bundled ROMs in every execution mode<br/>
+ * One operation is a frame: {@link #INSTRUCTIONS_PER_FRAME} calls to run() and a timer tick. {@link ExecutionMode#BLOCK}
+ * and {@link ExecutionMode#JIT} execute more than one opcode per run(), so the executed opcodes are reported as the
+ * "instructions" counter as well<br/>
+ * Usage: java -jar target/benchmarks.jar ThroughputBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThroughputBenchmark {
+	
+	/**
+	 * Opcodes per 60 Hz timer tick (600 instructions per second)
+	 */
+	public static final int INSTRUCTIONS_PER_FRAME = 10;
+	
+	@Param({ "invaders.c8", "pong2.c8", "tetris.c8" })
+	public String rom;
+	
+	@Param({ "SWITCH", "TABLE", "BLOCK", "JIT" })
+	public ExecutionMode executionMode;
+	
+	private Chip chip;
+	
+	/**
+	 * The amount of executed opcodes, reported per second next to the frames
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		
+		public long instructions;
+		
+		@Setup(Level.Iteration)
+		public void reset() {
+			instructions = 0;
+		}
+		
+	}
+	
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Roms.suppressOutput();
+		chip = Roms.load(rom, executionMode);
+	}
+	
+	@Benchmark
+	public void run(Counters counters) {
+		long start = chip.getInstructionCount();
+		for(int i = 0; i < INSTRUCTIONS_PER_FRAME; i++) {
+			chip.run();
+		}
+		chip.tickTimers();
+		counters.instructions += chip.getInstructionCount() - start;
+	}
+
+}
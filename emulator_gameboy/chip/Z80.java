@@ -1,9 +1,9 @@
 package chip;
 
-import java.io.DataInputStream;
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
 
 import chip.opcode.IOpcode;
 import chip.opcode.Opcode00NOP;
@@ -15,6 +15,11 @@ import chip.opcode.Opcode1FRotateRight;
 
 public class Z80 {
 
+	/**
+	 * The size of ROM bank 00 and 01, the most a cartridge without a memory bank controller can map
+	 */
+	public static final int CARTRIDGE_SIZE = 0x8000;
+
 	/**
 	 * The 160x144 pixel 4 colors display
 	 */
@@ -1053,31 +1058,28 @@ public class Z80 {
 	}
 
 	/**
-	 * Loads the cartridge into the memory
+	 * Loads the cartridge into the memory with a single read
 	 * 
 	 * @param file The location of the cartrigde
+	 * @throws IOException If the file can't be read or doesn't fit into the two ROM banks at 0000-7FFF, larger
+	 *                     cartridges need a memory bank controller
 	 */
-	public void loadCartridge(String file) {
-		DataInputStream input = null;
-		try {
-			input = new DataInputStream(new FileInputStream(new File(file)));
-
-			int offset = 0;
-			while (input.available() > 0) {
-				memory[offset] = (char) (input.readByte() & 0xFF);
-				offset++;
+	public void loadCartridge(String file) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(file))) {
+			long size = channel.size();
+			if (size > CARTRIDGE_SIZE) {
+				throw new IOException(file + " has " + size + " bytes, only " + CARTRIDGE_SIZE + " can be mapped");
 			}
-
-		} catch (IOException e) {
-			e.printStackTrace();
-			System.exit(0);
-		} finally {
-			if (input != null) {
-				try {
-					input.close();
-				} catch (IOException ex) {
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) == -1) {
+					throw new IOException(file + " is truncated");
 				}
 			}
+			byte[] data = buffer.array();
+			for (int i = 0; i < data.length; i++) {
+				memory[i] = (char) (data[i] & 0xFF);
+			}
 		}
 	}
 }
@@ -1,5 +1,7 @@
 package emu;
 
+import java.io.IOException;
+
 import chip.Z80;
 
 public class Main extends Thread {
@@ -7,7 +9,7 @@ public class Main extends Thread {
 	private Z80 z80;
 	private ChipFrame frame;
 	
-	public Main() {
+	public Main() throws IOException {
 		z80 = new Z80();
 		z80.reset();
 		z80.loadCartridge("./tetris.gb");
@@ -35,7 +37,7 @@ public class Main extends Thread {
 		}
 	}
 	
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
 		Main main = new Main();
 		main.start();
 	}